@@ -0,0 +1,43 @@
+package com.abn.recipeman.benchmark;
+
+import com.abn.recipeman.RecipeManApplication;
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.service.catalog.SyntheticCatalog;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The synthetic catalog of a given size, generated once into an H2 file database under {@code target/jmh} by the
+ * {@code generate-catalog} profile and reused by every benchmark fork, with the application started on top of it.
+ */
+final class BenchmarkCatalog {
+
+    private BenchmarkCatalog() {
+    }
+
+    /**
+     * Start the application on the catalog of the given size, generating whatever the database still misses.
+     */
+    static ConfigurableApplicationContext start(int catalogSize) {
+        return new SpringApplicationBuilder(RecipeManApplication.class)
+                .web(WebApplicationType.NONE)
+                // as arguments, to take precedence over application.yml
+                .run(
+                        "--spring.profiles.active=generate-catalog",
+                        "--recipeman.catalog.size=" + catalogSize,
+                        "--spring.datasource.url=jdbc:h2:file:./target/jmh/recipeman-" + catalogSize + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--logging.level.ROOT=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type=WARN"
+                );
+    }
+
+    /**
+     * The catalog with the default {@code recipeman.catalog} settings, the one {@link #start(int)} generates.
+     */
+    static SyntheticCatalog catalog() {
+        ApplicationProperties.Catalog properties = new ApplicationProperties().getCatalog();
+        return new SyntheticCatalog(properties.getSeed(), properties.getIngredientCount());
+    }
+}
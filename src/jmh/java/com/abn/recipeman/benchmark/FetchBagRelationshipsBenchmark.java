@@ -0,0 +1,80 @@
+package com.abn.recipeman.benchmark;
+
+import com.abn.recipeman.domain.model.entity.Recipe;
+import com.abn.recipeman.persistence.repository.RecipeRepository;
+import com.abn.recipeman.persistence.repository.RecipeRepositoryWithBagRelationshipsImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RecipeRepositoryWithBagRelationshipsImpl#fetchBagRelationships(List)} on pages of random recipes, with the
+ * second-level cache emptied before every call or left warm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FetchBagRelationshipsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"true", "false"})
+    private boolean coldCache;
+
+    private ConfigurableApplicationContext context;
+
+    private RecipeRepository recipeRepository;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private long[] recipeIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(catalogSize);
+        recipeRepository = context.getBean(RecipeRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        recipeIds = recipeRepository.findIdsAfter(0, PageRequest.of(0, catalogSize)).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void evictSecondLevelCache() {
+        if (coldCache) {
+            entityManagerFactory.getCache().evictAll();
+        }
+    }
+
+    @Benchmark
+    public List<Recipe> fetchBagRelationships() {
+        List<Long> ids = new ArrayList<>(pageSize);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < pageSize; i++) {
+            ids.add(recipeIds[random.nextInt(recipeIds.length)]);
+        }
+        return readOnlyTransaction.execute(status -> recipeRepository.fetchBagRelationships(recipeRepository.findAllById(ids)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.abn.recipeman.benchmark;
+
+import com.abn.recipeman.application.model.dto.FilterRecipeDto;
+import com.abn.recipeman.application.model.dto.RecipeDTO;
+import com.abn.recipeman.application.service.RecipeAttributeType;
+import com.abn.recipeman.application.service.RecipeService;
+import com.abn.recipeman.application.service.catalog.SyntheticCatalog;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RecipeService#inquiryRecipes} across filter shapes and catalog sizes, with and without the inquiry cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RecipeInquiryBenchmark {
+
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+
+    public enum Shape {
+        ATTRIBUTE(FilterRecipeDto.builder()
+                .attributes(Collections.singleton(RecipeAttributeType.VEGETARIAN))
+                .build()),
+        INCLUDE_INGREDIENT(FilterRecipeDto.builder()
+                .includeIngredients(Collections.singleton(SyntheticCatalog.ingredientName(3)))
+                .build()),
+        EXCLUDE_INGREDIENT(FilterRecipeDto.builder()
+                .excludeIngredients(Set.of(SyntheticCatalog.ingredientName(0), SyntheticCatalog.ingredientName(1)))
+                .build()),
+        SERVING_NUMBER(FilterRecipeDto.builder()
+                .servingNumber(4)
+                .build()),
+        INSTRUCTION(FilterRecipeDto.builder()
+                .filterInstruction("simmer gen")
+                .build()),
+        COMBINED(FilterRecipeDto.builder()
+                .attributes(Collections.singleton(RecipeAttributeType.VEGETARIAN))
+                .includeIngredients(Collections.singleton(SyntheticCatalog.ingredientName(3)))
+                .excludeIngredients(Collections.singleton(SyntheticCatalog.ingredientName(0)))
+                .servingNumber(4)
+                .filterInstruction("stir")
+                .build());
+
+        private final FilterRecipeDto filter;
+
+        Shape(FilterRecipeDto filter) {
+            this.filter = filter;
+        }
+    }
+
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    @Param
+    private Shape shape;
+
+    @Param({"false", "true"})
+    private boolean inquiryCache;
+
+    private ConfigurableApplicationContext context;
+
+    private RecipeService recipeService;
+
+    private TransactionTemplate readWriteTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkCatalog.start(catalogSize);
+        recipeService = context.getBean(RecipeService.class);
+        readWriteTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<RecipeDTO> inquiryRecipes() {
+        if (inquiryCache) {
+            return recipeService.inquiryRecipes(shape.filter, PAGE);
+        }
+        // results are neither cached nor taken from the cache inside a read-write transaction
+        return readWriteTransaction.execute(status -> recipeService.inquiryRecipes(shape.filter, PAGE));
+    }
+}
@@ -0,0 +1,68 @@
+package com.abn.recipeman.benchmark;
+
+import com.abn.recipeman.application.model.dto.AttributeDTO;
+import com.abn.recipeman.application.model.dto.RecipeDTO;
+import com.abn.recipeman.application.model.dto.mapper.RecipeMapper;
+import com.abn.recipeman.application.service.RecipeAttributeType;
+import com.abn.recipeman.application.service.catalog.SyntheticCatalog;
+import com.abn.recipeman.application.service.catalog.SyntheticCatalog.SyntheticRecipe;
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RecipeMapper#toDto} and {@link RecipeMapper#toDtoAttributeIdSet} on detached recipes of the synthetic
+ * catalog, without the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RecipeMapperBenchmark {
+
+    @Param({"20", "1000"})
+    private int recipeCount;
+
+    private final RecipeMapper recipeMapper = Mappers.getMapper(RecipeMapper.class);
+
+    private List<Recipe> recipes;
+
+    private Set<Attribute> allAttributes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<RecipeAttributeType, Attribute> attributes = new EnumMap<>(RecipeAttributeType.class);
+        for (RecipeAttributeType type : RecipeAttributeType.values()) {
+            attributes.put(type, new Attribute().id((long) type.ordinal() + 1).recipeAttributeType(type));
+        }
+        allAttributes = new HashSet<>(attributes.values());
+        recipes = new ArrayList<>(recipeCount);
+        SyntheticCatalog catalog = BenchmarkCatalog.catalog();
+        for (int index = 0; index < recipeCount; index++) {
+            SyntheticRecipe generated = catalog.recipe(index);
+            Recipe recipe = new Recipe()
+                    .id((long) index + 1)
+                    .name(generated.getName())
+                    .servingNumber(generated.getServingNumber())
+                    .instruction(generated.getInstruction());
+            generated.getAttributes().forEach(type -> recipe.getAttributes().add(attributes.get(type)));
+            recipes.add(recipe);
+        }
+    }
+
+    @Benchmark
+    public List<RecipeDTO> toDto() {
+        return recipeMapper.toDto(recipes);
+    }
+
+    @Benchmark
+    public Set<AttributeDTO> toDtoAttributeIdSet() {
+        return recipeMapper.toDtoAttributeIdSet(allAttributes);
+    }
+}
@@ -1,9 +1,12 @@
 package com.abn.recipeman;
 
+import com.abn.recipeman.application.config.ApplicationProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties(ApplicationProperties.class)
 public class RecipeManApplication {
 
     public static void main(String[] args) {
@@ -1,6 +1,7 @@
 package com.abn.recipeman.adapter.model.errors;
 
 import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -19,6 +20,11 @@ import java.util.Map;
 @ControllerAdvice
 public class ExceptionTranslator extends ResponseEntityExceptionHandler {
 
+    /**
+     * Request attribute set when the version a write expects came from its {@code If-Match}.
+     */
+    public static final String IF_MATCH_VERSION_ATTRIBUTE = ExceptionTranslator.class.getName() + ".IF_MATCH_VERSION";
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleCityNotFoundException(
             final Exception ex, final WebRequest request) {
@@ -40,4 +46,20 @@ public class ExceptionTranslator extends ResponseEntityExceptionHandler {
             final ConstraintViolationException ex, final WebRequest request) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * A write against a version of the entity that is no longer current: {@code 412 (Precondition Failed)} when the
+     * version came from an {@code If-Match}, as marked by {@link #IF_MATCH_VERSION_ATTRIBUTE}, {@code 409 (Conflict)}
+     * when it came from the body, even with an {@code If-Match: *}.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(
+            final OptimisticLockingFailureException ex, final WebRequest request) {
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("message", "The entity was changed since it was read");
+
+        boolean fromIfMatch = request.getAttribute(IF_MATCH_VERSION_ATTRIBUTE, WebRequest.SCOPE_REQUEST) != null;
+        return new ResponseEntity<>(body, fromIfMatch ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+    }
 }
@@ -3,6 +3,7 @@ package com.abn.recipeman.adapter.service.rest;
 import com.abn.recipeman.adapter.model.errors.BadRequestAlertException;
 import com.abn.recipeman.application.model.dto.AttributeDTO;
 import com.abn.recipeman.application.service.AttributeService;
+import com.abn.recipeman.domain.model.entity.Attribute;
 import com.abn.recipeman.persistence.repository.AttributeRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,6 +11,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -65,15 +68,18 @@ public class AttributeController implements BaseController {
      * {@code PUT  /attributes/:id} : Updates an existing attribute.
      *
      * @param id           the id of the attributeDTO to save.
+     * @param ifMatch      the entity tag of the attributeDTO as last read, if any.
      * @param attributeDTO the attributeDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated attributeDTO,
      * or with status {@code 400 (Bad Request)} if the attributeDTO is not valid,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the attributeDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the attributeDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/attributes/{id}")
     public ResponseEntity<AttributeDTO> updateAttribute(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @Valid @RequestBody AttributeDTO attributeDTO
     ) throws URISyntaxException {
         log.debug("REST request to update Attribute : {}, {}", id, attributeDTO);
@@ -84,11 +90,17 @@ public class AttributeController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!attributeRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        attributeDTO.setVersion(expectedVersion(ifMatch, attributeDTO.getVersion()));
+        AttributeDTO result;
+        try {
+            result = attributeService.update(attributeDTO).orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        } catch (OptimisticLockingFailureException e) {
+            // a missing entity fails the versioned update too, it is only looked for then
+            if (!attributeRepository.existsById(id)) {
+                throw entityNotFound(ifMatch, ENTITY_NAME);
+            }
+            throw e;
         }
-
-        AttributeDTO result = attributeService.update(attributeDTO);
         return ResponseEntity
                 .ok()
                 .body(result);
@@ -98,10 +110,12 @@ public class AttributeController implements BaseController {
      * {@code PATCH  /attributes/:id} : Partial updates given fields of an existing attribute, field will ignore if it is null
      *
      * @param id           the id of the attributeDTO to save.
+     * @param ifMatch      the entity tag of the attributeDTO as last read, if any.
      * @param attributeDTO the attributeDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated attributeDTO,
      * or with status {@code 400 (Bad Request)} if the attributeDTO is not valid,
      * or with status {@code 404 (Not Found)} if the attributeDTO is not found,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the attributeDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the attributeDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -111,11 +125,14 @@ public class AttributeController implements BaseController {
                             schema = @Schema(implementation = AttributeDTO.class))),
             @ApiResponse(responseCode = "400", description = "if the attributeDTO is not valid"),
             @ApiResponse(responseCode = "404", description = "if the attributeDTO is not found"),
+            @ApiResponse(responseCode = "409", description = "if the attributeDTO changed since the version in the body was read"),
+            @ApiResponse(responseCode = "412", description = "if the attributeDTO changed since the If-Match tag was read"),
             @ApiResponse(responseCode = "500", description = "if the attributeDTO couldn't be updated")
     })
     @PatchMapping(value = "/attributes/{id}", consumes = {"application/json", "application/merge-patch+json"})
     public ResponseEntity<AttributeDTO> partialUpdateAttribute(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @NotNull @RequestBody AttributeDTO attributeDTO
     ) throws URISyntaxException {
         log.debug("REST request to partial update Attribute partially : {}, {}", id, attributeDTO);
@@ -126,15 +143,12 @@ public class AttributeController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!attributeRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<AttributeDTO> result = attributeService.partialUpdate(attributeDTO);
-
-        return wrapOrNotFound(
-                result
-        );
+        attributeDTO.setVersion(expectedVersion(ifMatch, attributeDTO.getVersion()));
+        AttributeDTO result = attributeService.partialUpdate(attributeDTO)
+                .orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        return ResponseEntity
+                .ok()
+                .body(result);
     }
 
     /**
@@ -143,6 +157,7 @@ public class AttributeController implements BaseController {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of attributes in body.
      */
     @GetMapping("/attributes")
+    @ConditionalGet(Attribute.class)
     public List<AttributeDTO> getAllAttributes() {
         log.debug("REST request to get all Attributes");
         return attributeService.findAll();
@@ -155,6 +170,7 @@ public class AttributeController implements BaseController {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the attributeDTO, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/attributes/{id}")
+    @ConditionalGet(value = Attribute.class, idVariable = "id")
     public ResponseEntity<AttributeDTO> getAttribute(@PathVariable Long id) {
         log.debug("REST request to get Attribute : {}", id);
         Optional<AttributeDTO> attributeDTO = attributeService.findOne(id);
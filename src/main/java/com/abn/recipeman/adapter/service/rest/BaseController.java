@@ -1,10 +1,15 @@
 package com.abn.recipeman.adapter.service.rest;
 
+import com.abn.recipeman.adapter.model.errors.BadRequestAlertException;
+import com.abn.recipeman.adapter.model.errors.ExceptionTranslator;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface BaseController {
@@ -18,4 +23,51 @@ public interface BaseController {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
+    /**
+     * @return the version a write is expected to find, from the {@code If-Match} if any, else from the body; a version
+     * from the {@code If-Match} is marked on the request, so a stale write answers {@code 412 (Precondition Failed)}
+     * rather than {@code 409 (Conflict)}, see {@link ExceptionTranslator}.
+     * @throws ResponseStatusException {@code 412 (Precondition Failed)} if the {@code If-Match} is weak or not the tag
+     *                                 of a single entity, or disagrees with the version of the body.
+     */
+    default Long expectedVersion(String ifMatch, Long bodyVersion) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return bodyVersion;
+        }
+        if (EntityTags.isWeak(ifMatch)) {
+            // a weak tag never matches strongly
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        Long version = EntityTags.version(ifMatch)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+        if (bodyVersion != null && !bodyVersion.equals(version)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        RequestContextHolder.currentRequestAttributes()
+                .setAttribute(ExceptionTranslator.IF_MATCH_VERSION_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        return version;
+    }
+
+    /**
+     * @return the exception for a write of an entity that does not exist: {@code 412 (Precondition Failed)} with an
+     * {@code If-Match}, which nothing matches, else a {@link BadRequestAlertException}.
+     */
+    default RuntimeException entityNotFound(String ifMatch, String entityName) {
+        if (ifMatch != null) {
+            return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        return new BadRequestAlertException("Entity not found", entityName, "idnotfound");
+    }
+
+    /**
+     * @return the ids of a batch get.
+     * @throws BadRequestAlertException if there are more than {@code maxIds} ids.
+     */
+    default List<Long> batchIds(List<Long> ids, int maxIds, String entityName) {
+        if (ids.size() > maxIds) {
+            throw new BadRequestAlertException("Too many ids in one request", entityName, "idstoomany");
+        }
+        return ids;
+    }
+
 }
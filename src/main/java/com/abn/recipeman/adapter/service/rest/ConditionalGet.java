@@ -0,0 +1,30 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks an endpoint whose response only changes with the {@link com.abn.recipeman.application.service.version.EntityVersions}
+ * of the given entities, so it can be answered with {@code 304 (Not Modified)} before it is handled.
+ *
+ * @see ConditionalGetInterceptor
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConditionalGet {
+
+    /**
+     * @return the entity type the response represents.
+     */
+    Class<?> value();
+
+    /**
+     * @return the path variable holding the id of the represented entity, empty if all the entities of the type are.
+     */
+    String idVariable() default "";
+
+    /**
+     * @return other entity types, any entity of which is part of the response.
+     */
+    Class<?>[] dependsOn() default {};
+}
@@ -0,0 +1,87 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import com.abn.recipeman.application.service.version.EntityVersions;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * Sets the strong {@code ETag} and the {@code Last-Modified} of the endpoints marked {@link ConditionalGet} from the
+ * {@link EntityVersions} of what they represent, and answers {@code 304 (Not Modified)} to a matching
+ * {@code If-None-Match} or {@code If-Modified-Since} without handling the request.
+ * <p>
+ * Versions are read before the response is built and advanced after a write has committed, so a response is never
+ * tagged with a version newer than its content. The tag of a single entity also carries the version of the entity,
+ * only known once it is read: its stamp is left in the {@link #STAMP_ATTRIBUTE} request attribute for
+ * {@link ConditionalGetResponseAdvice} to complete the tag, and a tag at the current stamp is current whatever its
+ * version.
+ */
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    /**
+     * The request attribute holding the stamp of the response of a single entity.
+     */
+    public static final String STAMP_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".stamp";
+
+    private final EntityVersions versions;
+
+    public ConditionalGetInterceptor(EntityVersions versions) {
+        this.versions = versions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        ConditionalGet conditionalGet = AnnotatedElementUtils.findMergedAnnotation(((HandlerMethod) handler).getMethod(), ConditionalGet.class);
+        if (conditionalGet == null) {
+            return true;
+        }
+        long stamp;
+        if (conditionalGet.idVariable().isEmpty()) {
+            stamp = versions.version(conditionalGet.value());
+        } else {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            String id = variables == null ? null : variables.get(conditionalGet.idVariable());
+            try {
+                stamp = versions.version(conditionalGet.value(), Long.parseLong(id));
+            } catch (NumberFormatException e) {
+                // not an id, left to the handler to reject
+                return true;
+            }
+        }
+        for (Class<?> type : conditionalGet.dependsOn()) {
+            stamp = Math.max(stamp, versions.version(type));
+        }
+        long lastModified = EntityVersions.lastModified(stamp);
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (conditionalGet.idVariable().isEmpty()) {
+            return !webRequest.checkNotModified(EntityTags.of(versions.instance(), stamp), lastModified);
+        }
+        Enumeration<String> ifNoneMatch = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch.hasMoreElements()) {
+            // If-Modified-Since is ignored along with If-None-Match
+            while (ifNoneMatch.hasMoreElements()) {
+                for (String tag : ifNoneMatch.nextElement().split(",")) {
+                    if (EntityTags.isAt(tag, versions.instance(), stamp)) {
+                        return !webRequest.checkNotModified(tag.trim(), lastModified);
+                    }
+                }
+            }
+        } else if (webRequest.checkNotModified(lastModified)) {
+            return false;
+        }
+        request.setAttribute(STAMP_ATTRIBUTE, stamp);
+        return true;
+    }
+}
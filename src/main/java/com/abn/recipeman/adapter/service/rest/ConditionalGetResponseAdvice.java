@@ -0,0 +1,76 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import com.abn.recipeman.application.model.dto.VersionedDTO;
+import com.abn.recipeman.application.service.version.EntityVersions;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Completes the {@code ETag} of the single entity returned by an endpoint marked {@link ConditionalGet} with the
+ * version of the entity, at the stamp read by {@link ConditionalGetInterceptor}, unless the endpoint tagged it already.
+ */
+@ControllerAdvice
+public class ConditionalGetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final EntityVersions versions;
+
+    public ConditionalGetResponseAdvice(EntityVersions versions) {
+        this.versions = versions;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(ConditionalGet.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof VersionedDTO) || ((VersionedDTO) body).getVersion() == null || !(request instanceof ServletServerHttpRequest)
+                || response.getHeaders().getETag() != null) {
+            return body;
+        }
+        tag(versions, ((ServletServerHttpRequest) request).getServletRequest(), response.getHeaders(), ((VersionedDTO) body).getVersion());
+        return body;
+    }
+
+    /**
+     * Set the {@code ETag} of a single entity at the stamp read by {@link ConditionalGetInterceptor}.
+     *
+     * @param versions the entity versions.
+     * @param request  the request.
+     * @param headers  the headers of the response.
+     * @param version  the version of the entity.
+     */
+    private static void tag(EntityVersions versions, HttpServletRequest request, HttpHeaders headers, long version) {
+        Object stamp = request.getAttribute(ConditionalGetInterceptor.STAMP_ATTRIBUTE);
+        if (stamp instanceof Long) {
+            tag(versions, (Long) stamp, headers, version);
+        }
+    }
+
+    /**
+     * Set the {@code ETag} of a single entity at the given stamp, for the endpoints whose entity may have been read
+     * before the stamp read by {@link ConditionalGetInterceptor}, such as the ones served from a cache.
+     *
+     * @param versions the entity versions.
+     * @param stamp    the stamp read before the entity was.
+     * @param headers  the headers of the response.
+     * @param version  the version of the entity.
+     */
+    static void tag(EntityVersions versions, long stamp, HttpHeaders headers, long version) {
+        headers.setETag(EntityTags.of(versions.instance(), stamp, version));
+        if (headers.getLastModified() < 0) {
+            headers.setLastModified(EntityVersions.lastModified(stamp));
+        }
+    }
+}
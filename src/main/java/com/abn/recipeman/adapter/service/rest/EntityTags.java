@@ -0,0 +1,71 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import java.util.Optional;
+
+/**
+ * Entity tags of the API: {@code "<instance>-<stamp>"} for a collection and {@code "<instance>-<stamp>-<version>"} for
+ * a single entity, the stamp being read from the {@link com.abn.recipeman.application.service.version.EntityVersions}
+ * of the instance before the response is built, and the version being the one of the entity in the response.
+ * <p>
+ * The stamp alone tells whether a tag is still current, without reading the entity; the version is what an
+ * {@code If-Match} is checked against when writing it.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(String instance, long stamp) {
+        return "\"" + prefix(instance, stamp) + "\"";
+    }
+
+    static String of(String instance, long stamp, long version) {
+        return "\"" + prefix(instance, stamp) + "-" + version + "\"";
+    }
+
+    /**
+     * @return {@code true} if the given tag was made by this instance at the given stamp.
+     */
+    static boolean isAt(String tag, String instance, long stamp) {
+        String value = unquote(tag);
+        String prefix = prefix(instance, stamp);
+        return value.equals(prefix) || value.startsWith(prefix + "-");
+    }
+
+    /**
+     * @return the entity version of the given tag, empty if it is not the tag of a single entity.
+     */
+    static Optional<Long> version(String tag) {
+        String[] parts = unquote(tag).split("-");
+        if (parts.length != 3) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return {@code true} if the given tag is weak, which never matches an {@code If-Match}.
+     */
+    static boolean isWeak(String tag) {
+        return tag.trim().startsWith("W/");
+    }
+
+    private static String prefix(String instance, long stamp) {
+        return instance + "-" + Long.toString(stamp, Character.MAX_RADIX);
+    }
+
+    private static String unquote(String tag) {
+        String value = tag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
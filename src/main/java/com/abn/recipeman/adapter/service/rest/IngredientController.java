@@ -1,12 +1,17 @@
 package com.abn.recipeman.adapter.service.rest;
 
 import com.abn.recipeman.adapter.model.errors.BadRequestAlertException;
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.model.dto.BatchResultDTO;
 import com.abn.recipeman.application.model.dto.IngredientDTO;
+import com.abn.recipeman.application.model.dto.IngredientSuggestionDTO;
 import com.abn.recipeman.application.service.IngredientService;
 import com.abn.recipeman.domain.model.entity.Ingredient;
 import com.abn.recipeman.persistence.repository.IngredientRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -33,9 +38,13 @@ public class IngredientController implements BaseController {
 
     private final IngredientRepository ingredientRepository;
 
-    public IngredientController(IngredientService ingredientService, IngredientRepository ingredientRepository) {
+    private final ApplicationProperties applicationProperties;
+
+    public IngredientController(IngredientService ingredientService, IngredientRepository ingredientRepository,
+                                ApplicationProperties applicationProperties) {
         this.ingredientService = ingredientService;
         this.ingredientRepository = ingredientRepository;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -62,15 +71,18 @@ public class IngredientController implements BaseController {
      * {@code PUT  /ingredients/:id} : Updates an existing ingredient.
      *
      * @param id            the id of the ingredientDTO to save.
+     * @param ifMatch       the entity tag of the ingredientDTO as last read, if any.
      * @param ingredientDTO the ingredientDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ingredientDTO,
      * or with status {@code 400 (Bad Request)} if the ingredientDTO is not valid,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the ingredientDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the ingredientDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/ingredients/{id}")
     public ResponseEntity<IngredientDTO> updateIngredient(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @Valid @RequestBody IngredientDTO ingredientDTO
     ) throws URISyntaxException {
         log.debug("REST request to update Ingredient : {}, {}", id, ingredientDTO);
@@ -81,11 +93,17 @@ public class IngredientController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!ingredientRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        ingredientDTO.setVersion(expectedVersion(ifMatch, ingredientDTO.getVersion()));
+        IngredientDTO result;
+        try {
+            result = ingredientService.update(ingredientDTO).orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        } catch (OptimisticLockingFailureException e) {
+            // a missing entity fails the versioned update too, it is only looked for then
+            if (!ingredientRepository.existsById(id)) {
+                throw entityNotFound(ifMatch, ENTITY_NAME);
+            }
+            throw e;
         }
-
-        IngredientDTO result = ingredientService.update(ingredientDTO);
         return ResponseEntity
                 .ok()
                 .body(result);
@@ -95,16 +113,19 @@ public class IngredientController implements BaseController {
      * {@code PATCH  /ingredients/:id} : Partial updates given fields of an existing ingredient, field will ignore if it is null
      *
      * @param id            the id of the ingredientDTO to save.
+     * @param ifMatch       the entity tag of the ingredientDTO as last read, if any.
      * @param ingredientDTO the ingredientDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ingredientDTO,
      * or with status {@code 400 (Bad Request)} if the ingredientDTO is not valid,
      * or with status {@code 404 (Not Found)} if the ingredientDTO is not found,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the ingredientDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the ingredientDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/ingredients/{id}", consumes = {"application/json", "application/merge-patch+json"})
     public ResponseEntity<IngredientDTO> partialUpdateIngredient(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @NotNull @RequestBody IngredientDTO ingredientDTO
     ) throws URISyntaxException {
         log.debug("REST request to partial update Ingredient partially : {}, {}", id, ingredientDTO);
@@ -115,15 +136,12 @@ public class IngredientController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!ingredientRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<IngredientDTO> result = ingredientService.partialUpdate(ingredientDTO);
-
-        return wrapOrNotFound(
-                result
-        );
+        ingredientDTO.setVersion(expectedVersion(ifMatch, ingredientDTO.getVersion()));
+        IngredientDTO result = ingredientService.partialUpdate(ingredientDTO)
+                .orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        return ResponseEntity
+                .ok()
+                .body(result);
     }
 
     /**
@@ -132,11 +150,45 @@ public class IngredientController implements BaseController {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ingredients in body.
      */
     @GetMapping("/ingredients")
+    @ConditionalGet(Ingredient.class)
     public List<IngredientDTO> getAllIngredients() {
         log.debug("REST request to get all Ingredients");
         return ingredientService.findAll();
     }
 
+    /**
+     * {@code GET  /ingredients/suggest} : suggest ingredients for a typed prefix, from memory.
+     *
+     * @param prefix the prefix of the ingredient names, ignoring case.
+     * @param limit  the most suggestions to return, at most 50.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the ingredients used by the most recipes first in body.
+     */
+    @GetMapping("/ingredients/suggest")
+    @SqlStatementBudget(warnAbove = 0)
+    public List<IngredientSuggestionDTO> suggestIngredients(@RequestParam(defaultValue = "") String prefix,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        log.debug("REST request to suggest Ingredients for : {}", prefix);
+        return ingredientService.suggest(prefix, limit);
+    }
+
+    /**
+     * {@code GET  /ingredients?ids=1,2,3} : get the ingredients of the given ids in one request.
+     * <p>
+     * The ingredients are read from the second-level cache first, only the misses are read from the
+     * database, by chunks of ids.
+     *
+     * @param ids the ids of the ingredients to retrieve, at most {@code recipeman.pagination.max-batch-ids}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ingredients in the order of the ids and the ids not found,
+     * or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @GetMapping(value = "/ingredients", params = "ids")
+    @SqlStatementBudget(warnAbove = 10)
+    @ConditionalGet(Ingredient.class)
+    public BatchResultDTO<IngredientDTO> getIngredientsById(@RequestParam List<Long> ids) {
+        log.debug("REST request to get Ingredients : {}", ids);
+        return ingredientService.findAllById(batchIds(ids, applicationProperties.getPagination().getMaxBatchIds(), ENTITY_NAME));
+    }
+
     /**
      * {@code GET  /ingredients/:id} : get the "id" ingredient.
      *
@@ -144,6 +196,7 @@ public class IngredientController implements BaseController {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ingredientDTO, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/ingredients/{id}")
+    @ConditionalGet(value = Ingredient.class, idVariable = "id")
     public ResponseEntity<IngredientDTO> getIngredient(@PathVariable Long id) {
         log.debug("REST request to get Ingredient : {}", id);
         Optional<IngredientDTO> ingredientDTO = ingredientService.findOne(id);
@@ -0,0 +1,77 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import com.abn.recipeman.adapter.model.errors.BadRequestAlertException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.ToLongFunction;
+
+/**
+ * Utility class for keyset pagination.
+ * <p>
+ * A cursor is an opaque token holding the sort key and the last id a client has received. Clients send it back as
+ * the {@code after} parameter to get the following slice, and read the next one from the {@value #NEXT_CURSOR_HEADER}
+ * header, which is absent on the last slice.
+ */
+public final class PaginationUtil {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String ID_SORT_KEY = "id";
+
+    private PaginationUtil() {
+    }
+
+    /**
+     * Decode the id a cursor points after.
+     *
+     * @param cursor     the cursor sent by the client, may be {@code null} or empty for the first slice.
+     * @param entityName the name of the paginated entity, used in the error.
+     * @return the id, or {@code null} for the first slice.
+     * @throws BadRequestAlertException if the cursor was not issued by {@link #encodeCursor(long)}.
+     */
+    public static Long decodeCursor(String cursor, String entityName) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            if (separator > 0 && ID_SORT_KEY.equals(decoded.substring(0, separator))) {
+                long id = Long.parseLong(decoded.substring(separator + 1));
+                if (id >= 0) {
+                    return id;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below, NumberFormatException included
+        }
+        throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+    }
+
+    /**
+     * Encode the cursor pointing after the given id.
+     */
+    public static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((ID_SORT_KEY + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Generate the headers of a slice: the cursor of the next slice, if there is one.
+     *
+     * @param slice the slice returned to the client.
+     * @param idOf  the id of an element of the slice.
+     * @param <T>   the type of the elements.
+     * @return the headers.
+     */
+    public static <T> HttpHeaders generateCursorHttpHeaders(Slice<T> slice, ToLongFunction<T> idOf) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext() && slice.hasContent()) {
+            T last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            headers.add(NEXT_CURSOR_HEADER, encodeCursor(idOf.applyAsLong(last)));
+        }
+        return headers;
+    }
+}
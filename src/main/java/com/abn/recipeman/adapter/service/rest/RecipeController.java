@@ -1,30 +1,55 @@
 package com.abn.recipeman.adapter.service.rest;
 
 import com.abn.recipeman.adapter.model.errors.BadRequestAlertException;
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.model.dto.BatchResultDTO;
 import com.abn.recipeman.application.model.dto.FilterRecipeDto;
+import com.abn.recipeman.application.model.dto.FullRecipeDTO;
 import com.abn.recipeman.application.model.dto.RecipeDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportResultDTO;
+import com.abn.recipeman.application.model.dto.RecipeInquiryResultDTO;
+import com.abn.recipeman.application.service.RecipeImportService;
 import com.abn.recipeman.application.service.RecipeService;
+import com.abn.recipeman.application.service.json.SerializedRecipe;
+import com.abn.recipeman.application.service.version.EntityVersions;
+import com.abn.recipeman.application.service.version.Stamped;
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Recipe;
 import com.abn.recipeman.persistence.repository.RecipeRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 /**
- * REST controller for managing {@link com.abn.recipeman.domain.model.entity.Recipe}.
+ * REST controller for managing {@link Recipe}.
  */
 @RestController
 @RequestMapping("/api")
@@ -39,9 +64,22 @@ public class RecipeController implements BaseController {
 
     private final RecipeRepository recipeRepository;
 
-    public RecipeController(RecipeService recipeService, RecipeRepository recipeRepository) {
+    private final ApplicationProperties applicationProperties;
+
+    private final RecipeImportService recipeImportService;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityVersions entityVersions;
+
+    public RecipeController(RecipeService recipeService, RecipeRepository recipeRepository, ApplicationProperties applicationProperties,
+                            RecipeImportService recipeImportService, ObjectMapper objectMapper, EntityVersions entityVersions) {
         this.recipeService = recipeService;
+        this.recipeImportService = recipeImportService;
         this.recipeRepository = recipeRepository;
+        this.applicationProperties = applicationProperties;
+        this.objectMapper = objectMapper;
+        this.entityVersions = entityVersions;
     }
 
     /**
@@ -64,19 +102,42 @@ public class RecipeController implements BaseController {
                 .body(result);
     }
 
+    /**
+     * {@code POST  /recipes/bulk} : Create many recipes, with their ingredients and attributes.
+     * <p>
+     * Missing ingredients and attributes are created. Every recipe is either created, rejected when it is not valid or
+     * its name is taken, or failed when its chunk could not be written; the other recipes are not affected.
+     *
+     * @param recipes the recipes to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of every recipe, in request order,
+     * or with status {@code 400 (Bad Request)} if there are more recipes than {@code recipeman.bulk-import.max-recipes}.
+     */
+    @PostMapping("/recipes/bulk")
+    @SqlStatementBudget(warnAbove = 2000)
+    public ResponseEntity<List<RecipeImportResultDTO>> importRecipes(@NotNull @RequestBody List<RecipeImportDTO> recipes) {
+        log.debug("REST request to import {} Recipes", recipes.size());
+        if (recipes.size() > applicationProperties.getBulkImport().getMaxRecipes()) {
+            throw new BadRequestAlertException("Too many recipes in one import", ENTITY_NAME, "bulktoolarge");
+        }
+        return ResponseEntity.ok().body(recipeImportService.importRecipes(recipes));
+    }
+
     /**
      * {@code PUT  /recipes/:id} : Updates an existing recipe.
      *
      * @param id        the id of the recipeDTO to save.
+     * @param ifMatch   the entity tag of the recipeDTO as last read, if any.
      * @param recipeDTO the recipeDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated recipeDTO,
      * or with status {@code 400 (Bad Request)} if the recipeDTO is not valid,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the recipeDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the recipeDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/recipes/{id}")
     public ResponseEntity<RecipeDTO> updateRecipe(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @Valid @RequestBody RecipeDTO recipeDTO
     ) throws URISyntaxException {
         log.debug("REST request to update Recipe : {}, {}", id, recipeDTO);
@@ -87,11 +148,17 @@ public class RecipeController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!recipeRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        recipeDTO.setVersion(expectedVersion(ifMatch, recipeDTO.getVersion()));
+        RecipeDTO result;
+        try {
+            result = recipeService.update(recipeDTO).orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        } catch (OptimisticLockingFailureException e) {
+            // a missing entity fails the versioned update too, it is only looked for then
+            if (!recipeRepository.existsById(id)) {
+                throw entityNotFound(ifMatch, ENTITY_NAME);
+            }
+            throw e;
         }
-
-        RecipeDTO result = recipeService.update(recipeDTO);
         return ResponseEntity
                 .ok()
                 .body(result);
@@ -101,16 +168,19 @@ public class RecipeController implements BaseController {
      * {@code PATCH  /recipes/:id} : Partial updates given fields of an existing recipe, field will ignore if it is null
      *
      * @param id        the id of the recipeDTO to save.
+     * @param ifMatch   the entity tag of the recipeDTO as last read, if any.
      * @param recipeDTO the recipeDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated recipeDTO,
      * or with status {@code 400 (Bad Request)} if the recipeDTO is not valid,
      * or with status {@code 404 (Not Found)} if the recipeDTO is not found,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the recipeDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the recipeDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/recipes/{id}", consumes = {"application/json", "application/merge-patch+json"})
     public ResponseEntity<RecipeDTO> partialUpdateRecipe(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @NotNull @RequestBody RecipeDTO recipeDTO
     ) throws URISyntaxException {
         log.debug("REST request to partial update Recipe partially : {}, {}", id, recipeDTO);
@@ -121,14 +191,12 @@ public class RecipeController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!recipeRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<RecipeDTO> result = recipeService.partialUpdate(recipeDTO);
-
-        return wrapOrNotFound(
-                result);
+        recipeDTO.setVersion(expectedVersion(ifMatch, recipeDTO.getVersion()));
+        RecipeDTO result = recipeService.partialUpdate(recipeDTO)
+                .orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        return ResponseEntity
+                .ok()
+                .body(result);
     }
 
     /**
@@ -143,12 +211,56 @@ public class RecipeController implements BaseController {
         return recipeService.findAll();
     }
 
+    /**
+     * {@code GET  /recipes/export} : stream all the recipes as newline delimited JSON, in id order.
+     * <p>
+     * Every recipe is written to the response as soon as it is read, so unlike {@code GET /recipes} the whole catalog
+     * is never held in memory.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and one recipe per line in body.
+     */
+    @GetMapping(value = "/recipes/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRecipes() {
+        log.debug("REST request to export Recipes");
+        ObjectWriter writer = objectMapper.writerFor(RecipeDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                recipeService.exportAll(recipe -> {
+                    try {
+                        writer.writeValue(generator, recipe);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * {@code GET  /recipes/cursor} : get the recipes following a cursor, in id order.
+     *
+     * @param after the cursor received in the {@value PaginationUtil#NEXT_CURSOR_HEADER} header of the previous slice, none for the first slice.
+     * @param size  the size of the slice, capped by the server.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of recipes in body.
+     */
+    @GetMapping("/recipes/cursor")
+    public ResponseEntity<List<RecipeDTO>> getAllRecipesAfter(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", required = false) Integer size) {
+        log.debug("REST request to get Recipes after : {}", after);
+        Slice<RecipeDTO> slice = recipeService.findAllAfter(PaginationUtil.decodeCursor(after, ENTITY_NAME), pageSize(size));
+        return ResponseEntity.ok().headers(PaginationUtil.generateCursorHttpHeaders(slice, RecipeDTO::getId)).body(slice.getContent());
+    }
+
     /**
      * {@code GET  /recipes} : get all the recipes.
      *
      * @param filterRecipeDto flag to eager load entities from relationships (This is applicable for many-to-many).
-     * @param page
-     * @param size
+     * @param page            the page number.
+     * @param size            the page size, capped by the server; {@code recipeman.pagination.default-page-size} if absent.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of recipes in body.
      */
     @Operation(description = "Partial updates given fields of an existing attribute, field will ignore if it is null", responses = {
@@ -160,25 +272,140 @@ public class RecipeController implements BaseController {
             @ApiResponse(responseCode = "500", description = "if couldn't search for Recipes")
     })
     @PostMapping("/recipes/inquiry")
+    @SqlStatementBudget(warnAbove = 12)
     public List<RecipeDTO> inquiryRecipes(
             @RequestBody FilterRecipeDto filterRecipeDto
             , @RequestParam(name = "page", required = false, defaultValue = "0") int page
-            , @RequestParam(name = "size", required = false, defaultValue = "10000000") int size) {
+            , @RequestParam(name = "size", required = false) Integer size) {
         log.debug("REST request to inquiry Recipes");
-        return recipeService.inquiryRecipes(filterRecipeDto, PageRequest.of(page, size));
+        return recipeService.inquiryRecipes(filterRecipeDto, PageRequest.of(page, pageSize(size)));
+    }
+
+    /**
+     * {@code POST  /recipes/inquiry/faceted} : get a page of the recipes matching the filter, with the number of
+     * matching recipes per attribute, per serving number and for their most used ingredients.
+     *
+     * @param filterRecipeDto the filter to apply.
+     * @param page            the page number.
+     * @param size            the page size, capped by the server.
+     * @param ingredients     the number of ingredients to count, capped like a page size.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the page with its facets in body.
+     */
+    @PostMapping("/recipes/inquiry/faceted")
+    @SqlStatementBudget(warnAbove = 12)
+    public RecipeInquiryResultDTO inquiryRecipesWithFacets(
+            @RequestBody FilterRecipeDto filterRecipeDto,
+            @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+            @RequestParam(name = "size", required = false, defaultValue = "20") int size,
+            @RequestParam(name = "ingredients", required = false, defaultValue = "10") Integer ingredients) {
+        log.debug("REST request to inquiry Recipes with facets");
+        return recipeService.inquiryRecipesWithFacets(filterRecipeDto, PageRequest.of(page, pageSize(size)), pageSize(ingredients));
+    }
+
+    /**
+     * {@code POST  /recipes/inquiry/cursor} : get the recipes matching the filter following a cursor, in id order.
+     * Unlike the offset pagination of {@code /recipes/inquiry}, the cost of a slice does not grow with its depth.
+     *
+     * @param filterRecipeDto the filter to apply.
+     * @param after           the cursor received in the {@value PaginationUtil#NEXT_CURSOR_HEADER} header of the previous slice, none for the first slice.
+     * @param size            the size of the slice, capped by the server.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of recipes in body.
+     */
+    @PostMapping("/recipes/inquiry/cursor")
+    @SqlStatementBudget(warnAbove = 12)
+    public ResponseEntity<List<RecipeDTO>> inquiryRecipesAfter(
+            @RequestBody FilterRecipeDto filterRecipeDto,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", required = false) Integer size) {
+        log.debug("REST request to inquiry Recipes after : {}", after);
+        Slice<RecipeDTO> slice = recipeService.inquiryRecipesAfter(filterRecipeDto, PaginationUtil.decodeCursor(after, ENTITY_NAME), pageSize(size));
+        return ResponseEntity.ok().headers(PaginationUtil.generateCursorHttpHeaders(slice, RecipeDTO::getId)).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /recipes?ids=1,2,3} : get the recipes of the given ids in one request.
+     * <p>
+     * The recipes and their attributes are read from the second-level cache first, only the misses are read from the
+     * database, by chunks of ids.
+     *
+     * @param ids the ids of the recipes to retrieve, at most {@code recipeman.pagination.max-batch-ids}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the recipes in the order of the ids and the ids not found,
+     * or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @GetMapping(value = "/recipes", params = "ids")
+    @SqlStatementBudget(warnAbove = 20)
+    @ConditionalGet(value = Recipe.class, dependsOn = Attribute.class)
+    public BatchResultDTO<RecipeDTO> getRecipesById(@RequestParam List<Long> ids) {
+        log.debug("REST request to get Recipes : {}", ids);
+        return recipeService.findAllById(batchIds(ids, applicationProperties.getPagination().getMaxBatchIds(), ENTITY_NAME));
     }
 
     /**
      * {@code GET  /recipes/:id} : get the "id" recipe.
      *
      * @param id the id of the recipeDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the recipeDTO, or with status {@code 404 (Not Found)}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the recipeDTO, or with status {@code 304 (Not Modified)}
+     * if it matches the {@code If-None-Match}, or with status {@code 404 (Not Found)}.
      */
+    @Operation(description = "get the \"id\" recipe", responses = {
+            @ApiResponse(responseCode = "200", description = "The recipe",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RecipeDTO.class))),
+            @ApiResponse(responseCode = "404", description = "if the RecipeDTO is not found")
+    })
     @GetMapping("/recipes/{id}")
-    public ResponseEntity<RecipeDTO> getRecipe(@PathVariable Long id) {
+    @SqlStatementBudget(warnAbove = 2)
+    public ResponseEntity<byte[]> getRecipe(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         log.debug("REST request to get Recipe : {}", id);
-        Optional<RecipeDTO> recipeDTO = recipeService.findOne(id);
-        return wrapOrNotFound(recipeDTO);
+        SerializedRecipe recipe = recipeService.findOneSerialized(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT_ENCODING));
+        // tagged at the stamp the recipe was cached at, which is older than the current one if it raced with a write;
+        // made of the versions of its own attributes, the stamp is only known once the recipe is, so a matching
+        // If-None-Match is answered with 304 (Not Modified) from the tag of the response
+        ConditionalGetResponseAdvice.tag(entityVersions, recipe.getStamp(), headers, recipe.getVersion());
+        if (acceptsGzip(acceptEncoding)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return ResponseEntity.ok().headers(headers).body(recipe.getGzip());
+        }
+        return ResponseEntity.ok().headers(headers).body(recipe.getJson());
+    }
+
+    /**
+     * {@code GET  /recipes/:id/full} : get the "id" recipe with its attributes in full, and its ingredients with their
+     * name and amount.
+     *
+     * @param id the id of the recipe to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the full recipe, or with status {@code 304 (Not Modified)}
+     * if it matches the {@code If-None-Match}, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/recipes/{id}/full")
+    @SqlStatementBudget(warnAbove = 2)
+    public ResponseEntity<FullRecipeDTO> getFullRecipe(@PathVariable Long id) {
+        log.debug("REST request to get full Recipe : {}", id);
+        Stamped<FullRecipeDTO> recipe = recipeService.findOneFull(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        HttpHeaders headers = new HttpHeaders();
+        // tagged at the stamp the recipe was cached at, which is older than the current one if it raced with a write;
+        // made of the versions of its own attributes and ingredients, the stamp is only known once the recipe is, so a
+        // matching If-None-Match is answered with 304 (Not Modified) from the tag of the response
+        ConditionalGetResponseAdvice.tag(entityVersions, recipe.getStamp(), headers, recipe.getValue().getVersion());
+        return ResponseEntity.ok().headers(headers).body(recipe.getValue());
+    }
+
+    /**
+     * {@code GET  /recipes/:id/similar} : get the recipes sharing the most ingredients with the "id" recipe.
+     *
+     * @param id the id of the recipe to find similar recipes for.
+     * @param k  the most recipes to return, capped like a page size.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the most similar recipes first in body.
+     */
+    @GetMapping("/recipes/{id}/similar")
+    @SqlStatementBudget(warnAbove = 2)
+    public List<RecipeDTO> getSimilarRecipes(@PathVariable Long id, @RequestParam(defaultValue = "10") Integer k) {
+        log.debug("REST request to get Recipes similar to : {}", id);
+        return recipeService.findSimilar(id, pageSize(k));
     }
 
     /**
@@ -195,4 +422,37 @@ public class RecipeController implements BaseController {
                 .noContent()
                 .build();
     }
+
+    /**
+     * @return {@code true} if the {@code Accept-Encoding} accepts gzip, as listed, or by {@code *} when it is not listed,
+     * ignoring the preference among codings.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean anyAccepted = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean accepted = parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            if (name.equalsIgnoreCase("gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                anyAccepted = accepted;
+            }
+        }
+        return anyAccepted;
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return applicationProperties.getPagination().getDefaultPageSize();
+        }
+        if (size < 1) {
+            throw new BadRequestAlertException("Invalid page size", ENTITY_NAME, "sizeinvalid");
+        }
+        return Math.min(size, applicationProperties.getPagination().getMaxPageSize());
+    }
 }
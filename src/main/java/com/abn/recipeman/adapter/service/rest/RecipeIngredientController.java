@@ -1,11 +1,16 @@
 package com.abn.recipeman.adapter.service.rest;
 
 import com.abn.recipeman.adapter.model.errors.BadRequestAlertException;
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.model.dto.BatchResultDTO;
 import com.abn.recipeman.application.model.dto.RecipeIngredientDTO;
 import com.abn.recipeman.application.service.RecipeIngredientService;
+import com.abn.recipeman.domain.model.entity.RecipeIngredient;
 import com.abn.recipeman.persistence.repository.RecipeIngredientRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -33,12 +38,16 @@ public class RecipeIngredientController implements BaseController {
 
     private final RecipeIngredientRepository recipeIngredientRepository;
 
+    private final ApplicationProperties applicationProperties;
+
     public RecipeIngredientController(
             RecipeIngredientService recipeIngredientService,
-            RecipeIngredientRepository recipeIngredientRepository
+            RecipeIngredientRepository recipeIngredientRepository,
+            ApplicationProperties applicationProperties
     ) {
         this.recipeIngredientService = recipeIngredientService;
         this.recipeIngredientRepository = recipeIngredientRepository;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -66,15 +75,18 @@ public class RecipeIngredientController implements BaseController {
      * {@code PUT  /recipe-ingredients/:id} : Updates an existing recipeIngredient.
      *
      * @param id                  the id of the recipeIngredientDTO to save.
+     * @param ifMatch             the entity tag of the recipeIngredientDTO as last read, if any.
      * @param recipeIngredientDTO the recipeIngredientDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated recipeIngredientDTO,
      * or with status {@code 400 (Bad Request)} if the recipeIngredientDTO is not valid,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the recipeIngredientDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the recipeIngredientDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/recipe-ingredients/{id}")
     public ResponseEntity<RecipeIngredientDTO> updateRecipeIngredient(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @Valid @RequestBody RecipeIngredientDTO recipeIngredientDTO
     ) throws URISyntaxException {
         log.debug("REST request to update RecipeIngredient : {}, {}", id, recipeIngredientDTO);
@@ -85,11 +97,17 @@ public class RecipeIngredientController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!recipeIngredientRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        recipeIngredientDTO.setVersion(expectedVersion(ifMatch, recipeIngredientDTO.getVersion()));
+        RecipeIngredientDTO result;
+        try {
+            result = recipeIngredientService.update(recipeIngredientDTO).orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        } catch (OptimisticLockingFailureException e) {
+            // a missing entity fails the versioned update too, it is only looked for then
+            if (!recipeIngredientRepository.existsById(id)) {
+                throw entityNotFound(ifMatch, ENTITY_NAME);
+            }
+            throw e;
         }
-
-        RecipeIngredientDTO result = recipeIngredientService.update(recipeIngredientDTO);
         return ResponseEntity
                 .ok().body(result);
     }
@@ -98,16 +116,19 @@ public class RecipeIngredientController implements BaseController {
      * {@code PATCH  /recipe-ingredients/:id} : Partial updates given fields of an existing recipeIngredient, field will ignore if it is null
      *
      * @param id                  the id of the recipeIngredientDTO to save.
+     * @param ifMatch             the entity tag of the recipeIngredientDTO as last read, if any.
      * @param recipeIngredientDTO the recipeIngredientDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated recipeIngredientDTO,
      * or with status {@code 400 (Bad Request)} if the recipeIngredientDTO is not valid,
      * or with status {@code 404 (Not Found)} if the recipeIngredientDTO is not found,
+     * or with status {@code 409 (Conflict)} or {@code 412 (Precondition Failed)} if the recipeIngredientDTO changed since its version or {@code ifMatch} was read,
      * or with status {@code 500 (Internal Server Error)} if the recipeIngredientDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/recipe-ingredients/{id}", consumes = {"application/json", "application/merge-patch+json"})
     public ResponseEntity<RecipeIngredientDTO> partialUpdateRecipeIngredient(
             @PathVariable(value = "id", required = false) final Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch,
             @NotNull @RequestBody RecipeIngredientDTO recipeIngredientDTO
     ) throws URISyntaxException {
         log.debug("REST request to partial update RecipeIngredient partially : {}, {}", id, recipeIngredientDTO);
@@ -118,14 +139,12 @@ public class RecipeIngredientController implements BaseController {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!recipeIngredientRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<RecipeIngredientDTO> result = recipeIngredientService.partialUpdate(recipeIngredientDTO);
-
-        return wrapOrNotFound(
-                result);
+        recipeIngredientDTO.setVersion(expectedVersion(ifMatch, recipeIngredientDTO.getVersion()));
+        RecipeIngredientDTO result = recipeIngredientService.partialUpdate(recipeIngredientDTO)
+                .orElseThrow(() -> entityNotFound(ifMatch, ENTITY_NAME));
+        return ResponseEntity
+                .ok()
+                .body(result);
     }
 
     /**
@@ -139,6 +158,24 @@ public class RecipeIngredientController implements BaseController {
         return recipeIngredientService.findAll();
     }
 
+    /**
+     * {@code GET  /recipe-ingredients?ids=1,2,3} : get the recipeIngredients of the given ids in one request.
+     * <p>
+     * The recipeIngredients are read from the second-level cache first, only the misses are read from the
+     * database, by chunks of ids.
+     *
+     * @param ids the ids of the recipeIngredients to retrieve, at most {@code recipeman.pagination.max-batch-ids}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the recipeIngredients in the order of the ids and the ids not found,
+     * or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @GetMapping(value = "/recipe-ingredients", params = "ids")
+    @SqlStatementBudget(warnAbove = 10)
+    @ConditionalGet(RecipeIngredient.class)
+    public BatchResultDTO<RecipeIngredientDTO> getRecipeIngredientsById(@RequestParam List<Long> ids) {
+        log.debug("REST request to get RecipeIngredients : {}", ids);
+        return recipeIngredientService.findAllById(batchIds(ids, applicationProperties.getPagination().getMaxBatchIds(), ENTITY_NAME));
+    }
+
     /**
      * {@code GET  /recipe-ingredients/:id} : get the "id" recipeIngredient.
      *
@@ -0,0 +1,25 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import java.lang.annotation.*;
+
+/**
+ * The SQL statements one request of an endpoint is expected to issue, overriding the {@code recipeman.statement-budget}
+ * defaults. Can be put on a controller to apply to all of its endpoints.
+ *
+ * @see SqlStatementBudgetFilter
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlStatementBudget {
+
+    /**
+     * @return the statements above which a warning is logged.
+     */
+    int warnAbove();
+
+    /**
+     * @return the statements above which the request fails, negative for the configured default.
+     */
+    int failAbove() default -1;
+}
@@ -0,0 +1,124 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.persistence.statistics.SqlStatementCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Counts the SQL statements of every request in a {@link SqlStatementCounter} scope.
+ * <p>
+ * The statements issued and the time the database took to execute them until the response is committed are reported
+ * in the {@value #STATEMENTS_HEADER} and {@value #SERVER_TIMING_HEADER} headers. A warning is logged when a request
+ * goes over the budget of its endpoint, see {@link SqlStatementBudget}, or repeats a select more than
+ * {@code recipeman.statement-budget.repeated-select-warn-above} times, which usually means an N+1 load.
+ */
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final Logger log = LoggerFactory.getLogger(SqlStatementBudgetFilter.class);
+
+    private final ApplicationProperties.StatementBudget properties;
+
+    public SqlStatementBudgetFilter(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getStatementBudget();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(request.getMethod() + " " + request.getRequestURI());
+        try {
+            StatementHeadersResponse statementHeadersResponse = new StatementHeadersResponse(response, scope);
+            filterChain.doFilter(request, statementHeadersResponse);
+            statementHeadersResponse.writeStatementHeaders();
+        } finally {
+            scope.close();
+            if (scope.isOverBudget()) {
+                log.warn("{} issued {} SQL statements, over its budget of {}", scope.getName(), scope.getStatements(), scope.getWarnAbove());
+            }
+            scope.getMostRepeatedSelect()
+                    .filter(statement -> statement.getValue() > properties.getRepeatedSelectWarnAbove())
+                    .ifPresent(statement -> log.warn("{} repeated a SQL select {} times, possibly an N+1 load: {}",
+                            scope.getName(), statement.getValue(), statement.getKey()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    /**
+     * Writes the statement headers just before the response gets committed, after which they could not be added.
+     */
+    private static final class StatementHeadersResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementCounter.Scope scope;
+
+        private boolean written;
+
+        private StatementHeadersResponse(HttpServletResponse response, SqlStatementCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void writeStatementHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(scope.getStatements()));
+            setHeader(SERVER_TIMING_HEADER, String.format(Locale.ROOT, "sql;dur=%.3f", scope.getExecutionNanos() / 1_000_000.0));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeStatementHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeStatementHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeStatementHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeStatementHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeStatementHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeStatementHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.persistence.statistics.SqlStatementCounter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Applies the {@link SqlStatementBudget} of the handling endpoint, or the {@code recipeman.statement-budget} defaults,
+ * to the statement scope opened by {@link SqlStatementBudgetFilter}.
+ */
+public class SqlStatementBudgetInterceptor implements HandlerInterceptor {
+
+    private final ApplicationProperties.StatementBudget properties;
+
+    public SqlStatementBudgetInterceptor(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getStatementBudget();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        int warnAbove = properties.getWarnAbove();
+        int failAbove = properties.getFailAbove();
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            SqlStatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), SqlStatementBudget.class);
+            if (budget == null) {
+                budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), SqlStatementBudget.class);
+            }
+            if (budget != null) {
+                warnAbove = budget.warnAbove();
+                failAbove = budget.failAbove() < 0 ? failAbove : budget.failAbove();
+            }
+        }
+        int requestWarnAbove = warnAbove;
+        int requestFailAbove = failAbove;
+        SqlStatementCounter.current().ifPresent(scope -> scope.budget(requestWarnAbove, requestFailAbove));
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.abn.recipeman.adapter.service.rest;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Marks the requests sending the {@value #SQL_TRACE_HEADER} header with the {@value #SQL_TRACE_MDC_KEY} MDC key, for
+ * which {@link com.abn.recipeman.application.config.SqlTraceTurboFilter} logs the SQL statements and their bound
+ * parameters whatever the configured levels. Ignored unless {@code recipeman.logging.sql-trace-header} is set.
+ */
+public class SqlTraceFilter extends OncePerRequestFilter {
+
+    public static final String SQL_TRACE_HEADER = "X-Sql-Trace";
+
+    public static final String SQL_TRACE_MDC_KEY = "sqlTrace";
+
+    private final ApplicationProperties.Logging properties;
+
+    public SqlTraceFilter(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getLogging();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        MDC.put(SQL_TRACE_MDC_KEY, "true");
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(SQL_TRACE_MDC_KEY);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isSqlTraceHeader() || request.getHeader(SQL_TRACE_HEADER) == null;
+    }
+}
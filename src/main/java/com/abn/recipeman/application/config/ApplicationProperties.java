@@ -0,0 +1,555 @@
+package com.abn.recipeman.application.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Properties specific to RecipeMan.
+ * <p>
+ * Properties are configured in the {@code application.yml} file under the {@code recipeman} prefix.
+ */
+@ConfigurationProperties(prefix = "recipeman", ignoreUnknownFields = false)
+public class ApplicationProperties {
+
+    private final Inquiry inquiry = new Inquiry();
+
+    private final Pagination pagination = new Pagination();
+
+    private final Persistence persistence = new Persistence();
+
+    private final Cache cache = new Cache();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final Catalog catalog = new Catalog();
+
+    private final StatementBudget statementBudget = new StatementBudget();
+
+    private final Logging logging = new Logging();
+
+    private final Similarity similarity = new Similarity();
+
+    public Inquiry getInquiry() {
+        return inquiry;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Persistence getPersistence() {
+        return persistence;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public StatementBudget getStatementBudget() {
+        return statementBudget;
+    }
+
+    public Logging getLogging() {
+        return logging;
+    }
+
+    public Similarity getSimilarity() {
+        return similarity;
+    }
+
+    public static class Inquiry {
+
+        /**
+         * Answer the attribute, ingredient and serving number stages from the in-memory filter index once it is loaded.
+         */
+        private boolean useIndex = true;
+
+        /**
+         * Largest candidate set passed to the database as an id list; bigger sets are filtered in SQL instead.
+         */
+        private int maxIdListSize = 1000;
+
+        /**
+         * Backend answering the instruction text stage.
+         */
+        private InstructionSearch instructionSearch = InstructionSearch.MEMORY;
+
+        /**
+         * Run the independent database lookups of an inquiry concurrently, each on a connection of its own.
+         */
+        private boolean parallelLookups = false;
+
+        /**
+         * Threads running the parallel lookups, shared by all inquiries.
+         */
+        private int lookupThreads = 4;
+
+        /**
+         * Time all the parallel lookups of an inquiry have to complete in, also the timeout of their transactions in whole seconds.
+         */
+        private long lookupTimeoutMillis = 5000;
+
+        /**
+         * Recipes of a result whose ingredients are read to choose the ingredients its facets count exactly.
+         */
+        private int facetSampleSize = 4096;
+
+        public boolean isUseIndex() {
+            return useIndex;
+        }
+
+        public void setUseIndex(boolean useIndex) {
+            this.useIndex = useIndex;
+        }
+
+        public int getMaxIdListSize() {
+            return maxIdListSize;
+        }
+
+        public void setMaxIdListSize(int maxIdListSize) {
+            this.maxIdListSize = maxIdListSize;
+        }
+
+        public InstructionSearch getInstructionSearch() {
+            return instructionSearch;
+        }
+
+        public void setInstructionSearch(InstructionSearch instructionSearch) {
+            this.instructionSearch = instructionSearch;
+        }
+
+        public boolean isParallelLookups() {
+            return parallelLookups;
+        }
+
+        public void setParallelLookups(boolean parallelLookups) {
+            this.parallelLookups = parallelLookups;
+        }
+
+        public int getLookupThreads() {
+            return lookupThreads;
+        }
+
+        public void setLookupThreads(int lookupThreads) {
+            this.lookupThreads = lookupThreads;
+        }
+
+        public int getFacetSampleSize() {
+            return facetSampleSize;
+        }
+
+        public void setFacetSampleSize(int facetSampleSize) {
+            this.facetSampleSize = facetSampleSize;
+        }
+
+        public long getLookupTimeoutMillis() {
+            return lookupTimeoutMillis;
+        }
+
+        public void setLookupTimeoutMillis(long lookupTimeoutMillis) {
+            this.lookupTimeoutMillis = lookupTimeoutMillis;
+        }
+    }
+
+    public static class Pagination {
+
+        /**
+         * Page size of the cursor endpoints when the client does not ask for one.
+         */
+        private int defaultPageSize = 100;
+
+        /**
+         * Largest page size of the cursor endpoints, bigger requests are capped.
+         */
+        private int maxPageSize = 1000;
+
+        /**
+         * Largest number of ids of the batch get endpoints, bigger requests are rejected.
+         */
+        private int maxBatchIds = 1000;
+
+        public int getDefaultPageSize() {
+            return defaultPageSize;
+        }
+
+        public void setDefaultPageSize(int defaultPageSize) {
+            this.defaultPageSize = defaultPageSize;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+
+        public int getMaxBatchIds() {
+            return maxBatchIds;
+        }
+
+        public void setMaxBatchIds(int maxBatchIds) {
+            this.maxBatchIds = maxBatchIds;
+        }
+    }
+
+    public static class Persistence {
+
+        /**
+         * Number of ids bound in one statement when loading entities or their collections by id.
+         */
+        private int fetchBatchSize = 100;
+
+        /**
+         * Number of inserts, updates or deletes of one table sent to the database in one JDBC batch.
+         */
+        private int jdbcBatchSize = 50;
+
+        public int getFetchBatchSize() {
+            return fetchBatchSize;
+        }
+
+        public void setFetchBatchSize(int fetchBatchSize) {
+            this.fetchBatchSize = fetchBatchSize;
+        }
+
+        public int getJdbcBatchSize() {
+            return jdbcBatchSize;
+        }
+
+        public void setJdbcBatchSize(int jdbcBatchSize) {
+            this.jdbcBatchSize = jdbcBatchSize;
+        }
+    }
+
+    public static class BulkImport {
+
+        /**
+         * Largest number of recipes accepted by one bulk import request.
+         */
+        private int maxRecipes = 10000;
+
+        /**
+         * Number of recipes written per transaction, the persistence context is flushed and cleared between chunks.
+         */
+        private int chunkSize = 500;
+
+        public int getMaxRecipes() {
+            return maxRecipes;
+        }
+
+        public void setMaxRecipes(int maxRecipes) {
+            this.maxRecipes = maxRecipes;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Catalog {
+
+        /**
+         * Number of recipes written by the {@code generate-catalog} profile.
+         */
+        private long size = 100000;
+
+        /**
+         * Seed of the synthetic catalog, the same seed always gives the same recipes.
+         */
+        private long seed = 42;
+
+        /**
+         * Number of distinct ingredients of the synthetic catalog.
+         */
+        private int ingredientCount = 5000;
+
+        /**
+         * Number of threads writing the catalog.
+         */
+        private int threads = 4;
+
+        /**
+         * Number of recipes written per transaction.
+         */
+        private int batchSize = 1000;
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+
+        public int getIngredientCount() {
+            return ingredientCount;
+        }
+
+        public void setIngredientCount(int ingredientCount) {
+            this.ingredientCount = ingredientCount;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class StatementBudget {
+
+        /**
+         * Count the SQL statements of every request and report them in the response headers.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Statements a request may issue before a warning is logged, unless its endpoint declares its own budget.
+         */
+        private int warnAbove = 20;
+
+        /**
+         * Statements after which a request fails, unless its endpoint declares its own budget; negative for never.
+         */
+        private int failAbove = -1;
+
+        /**
+         * Times one select may be repeated by a request before a possible N+1 load is logged.
+         */
+        private int repeatedSelectWarnAbove = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWarnAbove() {
+            return warnAbove;
+        }
+
+        public void setWarnAbove(int warnAbove) {
+            this.warnAbove = warnAbove;
+        }
+
+        public int getFailAbove() {
+            return failAbove;
+        }
+
+        public void setFailAbove(int failAbove) {
+            this.failAbove = failAbove;
+        }
+
+        public int getRepeatedSelectWarnAbove() {
+            return repeatedSelectWarnAbove;
+        }
+
+        public void setRepeatedSelectWarnAbove(int repeatedSelectWarnAbove) {
+            this.repeatedSelectWarnAbove = repeatedSelectWarnAbove;
+        }
+    }
+
+    public static class Logging {
+
+        /**
+         * Log the SQL statements and their bound parameters of the requests sending the {@code X-Sql-Trace} header.
+         */
+        private boolean sqlTraceHeader = false;
+
+        /**
+         * Events the asynchronous appender of the {@code prod} profile queues before dropping them, read by {@code logback-spring.xml}.
+         */
+        private int asyncQueueSize = 8192;
+
+        public int getAsyncQueueSize() {
+            return asyncQueueSize;
+        }
+
+        public void setAsyncQueueSize(int asyncQueueSize) {
+            this.asyncQueueSize = asyncQueueSize;
+        }
+
+        public boolean isSqlTraceHeader() {
+            return sqlTraceHeader;
+        }
+
+        public void setSqlTraceHeader(boolean sqlTraceHeader) {
+            this.sqlTraceHeader = sqlTraceHeader;
+        }
+    }
+
+    public static class Similarity {
+
+        /**
+         * Bands of the MinHash signature of a recipe, each one hashed to a bucket of the LSH index.
+         */
+        private int bands = 20;
+
+        /**
+         * Signature values per band, more rows make the buckets more selective and miss more loosely similar recipes.
+         */
+        private int rows = 2;
+
+        /**
+         * Candidates read from the buckets of a recipe and compared to it, whatever the size of its buckets.
+         */
+        private int maxCandidates = 2000;
+
+        /**
+         * Seed of the MinHash functions.
+         */
+        private long seed = 42;
+
+        public int getBands() {
+            return bands;
+        }
+
+        public void setBands(int bands) {
+            this.bands = bands;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public void setRows(int rows) {
+            this.rows = rows;
+        }
+
+        public int getMaxCandidates() {
+            return maxCandidates;
+        }
+
+        public void setMaxCandidates(int maxCandidates) {
+            this.maxCandidates = maxCandidates;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Time to live of the entries of a second-level cache region.
+         */
+        private long timeToLiveSeconds = 3600;
+
+        /**
+         * Maximum number of entries of a second-level cache region.
+         */
+        private long maxEntries = 1000;
+
+        /**
+         * Overrides of the defaults, by region name: the entity class or collection role.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public static class Region {
+
+            private Long timeToLiveSeconds;
+
+            private Long maxEntries;
+
+            /**
+             * Maximum total weight of the entries, for the caches weighing them, in place of the maximum number.
+             */
+            private Long maxWeight;
+
+            public Long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Long getMaxWeight() {
+                return maxWeight;
+            }
+
+            public void setMaxWeight(Long maxWeight) {
+                this.maxWeight = maxWeight;
+            }
+        }
+    }
+
+    public enum InstructionSearch {
+        /**
+         * Inverted index held in memory, loaded at startup.
+         */
+        MEMORY,
+        /**
+         * PostgreSQL full-text search on a GIN indexed {@code tsvector}.
+         */
+        POSTGRES,
+    }
+}
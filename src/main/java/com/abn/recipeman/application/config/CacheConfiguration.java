@@ -1,9 +1,109 @@
 package com.abn.recipeman.application.config;
 
+import com.abn.recipeman.application.service.aggregate.FullRecipeCache;
+import com.abn.recipeman.application.service.inquiry.RecipeInquiryCache;
+import com.abn.recipeman.application.service.json.RecipeJsonCache;
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Ingredient;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.cache.CacheManager;
+import javax.cache.configuration.FactoryBuilder;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Second-level cache of Hibernate, held in bounded Caffeine caches behind JCache.
+ * <p>
+ * Every region gets the {@code recipeman.cache} size and time to live unless {@code recipeman.cache.regions} overrides
+ * them; a cache weighing its entries is bounded by the {@code max-weight} of its region instead. Caffeine evicts with
+ * W-TinyLFU and records hit and miss statistics for every region.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
+
+    private final ApplicationProperties.Cache cacheProperties;
+
+    public CacheConfiguration(ApplicationProperties applicationProperties) {
+        this.cacheProperties = applicationProperties.getCache();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCacheCustomizer(CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> {
+            createCache(cm, Recipe.class.getName());
+            createCache(cm, Recipe.class.getName() + ".recipeIngredients");
+            createCache(cm, Recipe.class.getName() + ".attributes");
+            createCache(cm, Ingredient.class.getName());
+            createCache(cm, Ingredient.class.getName() + ".recipeIngredients");
+            createCache(cm, Attribute.class.getName());
+            createCache(cm, Attribute.class.getName() + ".recipes");
+            createCache(cm, RecipeIngredient.class.getName());
+            createCache(cm, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+            createCache(cm, RecipeInquiryCache.CACHE_NAME, RecipeInquiryCache.ResultWeigher.class);
+            createCache(cm, FullRecipeCache.CACHE_NAME);
+            createCache(cm, RecipeJsonCache.CACHE_NAME);
+            // must outlive every cached query result, so it is neither bounded nor expired
+            createCache(cm, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, OptionalLong.empty(), OptionalLong.empty());
+        };
+    }
+
+    private void createCache(CacheManager cm, String cacheName) {
+        ApplicationProperties.Cache.Region region = cacheProperties.getRegions().get(cacheName);
+        long maxEntries = region != null && region.getMaxEntries() != null ? region.getMaxEntries() : cacheProperties.getMaxEntries();
+        createCache(cm, cacheName, OptionalLong.of(maxEntries), OptionalLong.of(expireAfterWriteNanos(region)));
+    }
+
+    private void createCache(CacheManager cm, String cacheName, Class<? extends Weigher<Object, Object>> weigher) {
+        ApplicationProperties.Cache.Region region = cacheProperties.getRegions().get(cacheName);
+        long maxWeight = region != null && region.getMaxWeight() != null ? region.getMaxWeight() : cacheProperties.getMaxEntries();
+        CaffeineConfiguration<Object, Object> configuration = configuration(OptionalLong.of(expireAfterWriteNanos(region)));
+        configuration.setMaximumWeight(OptionalLong.of(maxWeight));
+        configuration.setWeigherFactory(Optional.of(FactoryBuilder.factoryOf(weigher)));
+        createCache(cm, cacheName, configuration);
+    }
+
+    private void createCache(CacheManager cm, String cacheName, OptionalLong maxEntries, OptionalLong expireAfterWriteNanos) {
+        CaffeineConfiguration<Object, Object> configuration = configuration(expireAfterWriteNanos);
+        configuration.setMaximumSize(maxEntries);
+        createCache(cm, cacheName, configuration);
+    }
+
+    private void createCache(CacheManager cm, String cacheName, CaffeineConfiguration<Object, Object> configuration) {
+        // a cache created already, by another context sharing the manager, is kept with its entries
+        if (cm.getCache(cacheName) == null) {
+            cm.createCache(cacheName, configuration);
+        }
+    }
+
+    private long expireAfterWriteNanos(ApplicationProperties.Cache.Region region) {
+        long timeToLiveSeconds = region != null && region.getTimeToLiveSeconds() != null
+                ? region.getTimeToLiveSeconds()
+                : cacheProperties.getTimeToLiveSeconds();
+        return TimeUnit.SECONDS.toNanos(timeToLiveSeconds);
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(OptionalLong expireAfterWriteNanos) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setExpireAfterWrite(expireAfterWriteNanos);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
 }
@@ -1,7 +1,14 @@
 package com.abn.recipeman.application.config;
 
+import com.abn.recipeman.persistence.statistics.CountingStatementInspector;
+import com.abn.recipeman.persistence.statistics.StatementTimingSessionListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.loader.BatchFetchStyle;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -16,4 +23,44 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableTransactionManagement
 public class DatabaseConfiguration {
 
+    /**
+     * Lazy collections and proxies are loaded {@code fetch-batch-size} owners at a time, and IN lists are padded so
+     * that a few statement shapes are reused instead of one per list length.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer fetchBatchSizeCustomizer(ApplicationProperties applicationProperties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.DEFAULT_BATCH_FETCH_SIZE, applicationProperties.getPersistence().getFetchBatchSize());
+            hibernateProperties.put(AvailableSettings.BATCH_FETCH_STYLE, BatchFetchStyle.PADDED.name());
+            hibernateProperties.put(AvailableSettings.IN_CLAUSE_PARAMETER_PADDING, true);
+        };
+    }
+
+    /**
+     * Writes of one table are grouped into JDBC batches of {@code jdbc-batch-size} statements, ordering inserts and
+     * updates by entity so that a flush of several entity types still fills whole batches. Sequence ids are handed out
+     * by the pooled-lo optimizer, one sequence call per allocation size of ids.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchSizeCustomizer(ApplicationProperties applicationProperties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_BATCH_SIZE, applicationProperties.getPersistence().getJdbcBatchSize());
+            hibernateProperties.put(AvailableSettings.ORDER_INSERTS, true);
+            hibernateProperties.put(AvailableSettings.ORDER_UPDATES, true);
+            hibernateProperties.put(AvailableSettings.BATCH_VERSIONED_DATA, true);
+            hibernateProperties.put(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        };
+    }
+
+    /**
+     * Every statement Hibernate prepares, and the time the database takes to execute it, is counted in the
+     * {@link com.abn.recipeman.persistence.statistics.SqlStatementCounter} scope of the current thread.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new CountingStatementInspector());
+            hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, StatementTimingSessionListener.class.getName());
+        };
+    }
 }
@@ -0,0 +1,49 @@
+package com.abn.recipeman.application.config;
+
+import com.abn.recipeman.application.service.index.RecipeIndexEventListener;
+import com.abn.recipeman.application.service.version.EntityVersionEventListener;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Registers the application's Hibernate event listeners on the session factory.
+ */
+@Configuration
+public class HibernateEventConfiguration {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final RecipeIndexEventListener recipeIndexEventListener;
+
+    private final EntityVersionEventListener entityVersionEventListener;
+
+    public HibernateEventConfiguration(EntityManagerFactory entityManagerFactory, RecipeIndexEventListener recipeIndexEventListener,
+                                       EntityVersionEventListener entityVersionEventListener) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.recipeIndexEventListener = recipeIndexEventListener;
+        this.entityVersionEventListener = entityVersionEventListener;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, recipeIndexEventListener);
+        registry.appendListeners(EventType.POST_UPDATE, recipeIndexEventListener);
+        registry.appendListeners(EventType.POST_DELETE, recipeIndexEventListener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, recipeIndexEventListener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, recipeIndexEventListener);
+        registry.appendListeners(EventType.POST_INSERT, entityVersionEventListener);
+        registry.appendListeners(EventType.POST_UPDATE, entityVersionEventListener);
+        registry.appendListeners(EventType.POST_DELETE, entityVersionEventListener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, entityVersionEventListener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, entityVersionEventListener);
+    }
+}
@@ -0,0 +1,22 @@
+package com.abn.recipeman.application.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics of the application, exported by the actuator under {@code /actuator/prometheus}.
+ * <p>
+ * Services annotated with {@link io.micrometer.core.annotation.Timed} get a timer per public method, tagged with the
+ * class and method names. Repositories, HTTP requests, Hibernate statistics, the second-level cache regions and the
+ * Hikari pool are measured by the Spring Boot auto-configuration.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
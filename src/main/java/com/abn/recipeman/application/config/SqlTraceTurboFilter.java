@@ -0,0 +1,26 @@
+package com.abn.recipeman.application.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.abn.recipeman.adapter.service.rest.SqlTraceFilter;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Enables the Hibernate SQL and parameter binding loggers for the requests marked by {@link SqlTraceFilter}, so that
+ * they can stay off for every other request. Configured in {@code logback-spring.xml}.
+ */
+public class SqlTraceTurboFilter extends TurboFilter {
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        String name = logger.getName();
+        if ((name.startsWith("org.hibernate.SQL") || name.startsWith("org.hibernate.type"))
+                && MDC.get(SqlTraceFilter.SQL_TRACE_MDC_KEY) != null) {
+            return FilterReply.ACCEPT;
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,53 @@
+package com.abn.recipeman.application.config;
+
+import com.abn.recipeman.adapter.service.rest.ConditionalGetInterceptor;
+import com.abn.recipeman.adapter.service.rest.SqlStatementBudgetFilter;
+import com.abn.recipeman.adapter.service.rest.SqlStatementBudgetInterceptor;
+import com.abn.recipeman.adapter.service.rest.SqlTraceFilter;
+import com.abn.recipeman.application.service.version.EntityVersions;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web configuration of the REST API: the SQL statement budget of every request, the per-request SQL trace and the
+ * conditional GET of the endpoints marked {@link com.abn.recipeman.adapter.service.rest.ConditionalGet}.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private final ApplicationProperties applicationProperties;
+
+    private final EntityVersions entityVersions;
+
+    public WebConfiguration(ApplicationProperties applicationProperties, EntityVersions entityVersions) {
+        this.applicationProperties = applicationProperties;
+        this.entityVersions = entityVersions;
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementBudgetFilter> sqlStatementBudgetFilter() {
+        FilterRegistrationBean<SqlStatementBudgetFilter> registration = new FilterRegistrationBean<>(new SqlStatementBudgetFilter(applicationProperties));
+        registration.addUrlPatterns("/api/*");
+        // outermost, so that the statements of the other filters are counted too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlTraceFilter> sqlTraceFilter() {
+        FilterRegistrationBean<SqlTraceFilter> registration = new FilterRegistrationBean<>(new SqlTraceFilter(applicationProperties));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlStatementBudgetInterceptor(applicationProperties)).addPathPatterns("/api/**");
+        registry.addInterceptor(new ConditionalGetInterceptor(entityVersions)).addPathPatterns("/api/**");
+    }
+}
@@ -10,13 +10,24 @@ import java.util.Objects;
 /**
  * A DTO for the {@link Attribute} entity.
  */
-public class AttributeDTO implements Serializable {
+public class AttributeDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     @NotNull
     private RecipeAttributeType recipeAttributeType;
 
+    public AttributeDTO() {
+    }
+
+    public AttributeDTO(Long id, Long version, RecipeAttributeType recipeAttributeType) {
+        this.id = id;
+        this.version = version;
+        this.recipeAttributeType = recipeAttributeType;
+    }
+
     public Long getId() {
         return id;
     }
@@ -25,6 +36,15 @@ public class AttributeDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public RecipeAttributeType getRecipeAttributeType() {
         return recipeAttributeType;
     }
@@ -0,0 +1,60 @@
+package com.abn.recipeman.application.model.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The entities found for a list of ids, in the order of the ids, and the ids not found.
+ *
+ * @param <T> the DTO type.
+ */
+public class BatchResultDTO<T> implements Serializable {
+
+    private final List<T> items;
+
+    private final List<Long> missingIds;
+
+    public BatchResultDTO(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    /**
+     * @param ids      the ids asked for.
+     * @param entities the entity of every id in the same order, {@code null} for the ids not found.
+     * @param mapper   the mapper of the entities to their DTO.
+     * @return the result of the batch.
+     */
+    public static <E, T> BatchResultDTO<T> of(List<Long> ids, List<E> entities, Function<E, T> mapper) {
+        List<T> items = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            E entity = entities.get(i);
+            if (entity == null) {
+                missingIds.add(ids.get(i));
+            } else {
+                items.add(mapper.apply(entity));
+            }
+        }
+        return new BatchResultDTO<>(items, missingIds);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchResultDTO{" +
+                "items=" + getItems() +
+                ", missingIds=" + getMissingIds() +
+                "}";
+    }
+}
@@ -0,0 +1,36 @@
+package com.abn.recipeman.application.model.dto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A recipe with everything needed to show it: its attributes in full, and its ingredients with their name and amount.
+ */
+public class FullRecipeDTO extends RecipeDTO {
+
+    private final List<RecipeIngredientDTO> ingredients;
+
+    /**
+     * @param recipe      the recipe, its attributes are replaced.
+     * @param attributes  the attributes of the recipe, in full.
+     * @param ingredients the ingredients of the recipe, each with its ingredient in full.
+     */
+    public FullRecipeDTO(RecipeDTO recipe, Set<AttributeDTO> attributes, List<RecipeIngredientDTO> ingredients) {
+        super(recipe.getId(), recipe.getVersion(), recipe.getName(), recipe.getServingNumber(), recipe.getInstruction());
+        setAttributes(attributes);
+        this.ingredients = ingredients;
+    }
+
+    public List<RecipeIngredientDTO> getIngredients() {
+        return ingredients;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "FullRecipeDTO{" +
+                "recipe=" + super.toString() +
+                ", ingredients=" + getIngredients() +
+                "}";
+    }
+}
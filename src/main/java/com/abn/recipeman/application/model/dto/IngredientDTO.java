@@ -10,13 +10,24 @@ import java.util.Objects;
  * A DTO for the {@link Ingredient} entity.
  */
 
-public class IngredientDTO implements Serializable {
+public class IngredientDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     @NotNull
     private String name;
 
+    public IngredientDTO() {
+    }
+
+    public IngredientDTO(Long id, Long version, String name) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+    }
+
     public Long getId() {
         return id;
     }
@@ -25,6 +36,15 @@ public class IngredientDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
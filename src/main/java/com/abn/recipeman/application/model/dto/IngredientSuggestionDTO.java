@@ -0,0 +1,63 @@
+package com.abn.recipeman.application.model.dto;
+
+import com.abn.recipeman.domain.model.entity.Ingredient;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for an {@link Ingredient} suggested for a typed prefix, with the number of recipes using it.
+ */
+public class IngredientSuggestionDTO implements Serializable {
+
+    private final Long id;
+
+    private final String name;
+
+    private final int recipeCount;
+
+    public IngredientSuggestionDTO(Long id, String name, int recipeCount) {
+        this.id = id;
+        this.name = name;
+        this.recipeCount = recipeCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRecipeCount() {
+        return recipeCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IngredientSuggestionDTO)) {
+            return false;
+        }
+        IngredientSuggestionDTO that = (IngredientSuggestionDTO) o;
+        return recipeCount == that.recipeCount && Objects.equals(id, that.id) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, recipeCount);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "IngredientSuggestionDTO{" +
+                "id=" + getId() +
+                ", name='" + getName() + "'" +
+                ", recipeCount=" + getRecipeCount() +
+                "}";
+    }
+}
@@ -1,5 +1,7 @@
 package com.abn.recipeman.application.model.dto;
 
+import com.abn.recipeman.domain.model.ToStringUtil;
+
 import javax.persistence.Lob;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -10,10 +12,12 @@ import java.util.Set;
 /**
  * A DTO for the {@link com.abn.recipeman.domain.model.entity.Recipe} entity.
  */
-public class RecipeDTO implements Serializable {
+public class RecipeDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     @NotNull
     private String name;
 
@@ -25,6 +29,20 @@ public class RecipeDTO implements Serializable {
 
     private Set<AttributeDTO> attributes = new HashSet<>();
 
+    public RecipeDTO() {
+    }
+
+    /**
+     * Used by JPQL constructor expressions, the attributes are left empty.
+     */
+    public RecipeDTO(Long id, Long version, String name, Integer servingNumber, String instruction) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.servingNumber = servingNumber;
+        this.instruction = instruction;
+    }
+
     public Long getId() {
         return id;
     }
@@ -33,6 +51,15 @@ public class RecipeDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -93,7 +120,7 @@ public class RecipeDTO implements Serializable {
                 "id=" + getId() +
                 ", name='" + getName() + "'" +
                 ", servingNumber=" + getServingNumber() +
-                ", instruction='" + getInstruction() + "'" +
+                ", instruction='" + ToStringUtil.abbreviate(getInstruction()) + "'" +
                 ", attributes=" + getAttributes() +
                 "}";
     }
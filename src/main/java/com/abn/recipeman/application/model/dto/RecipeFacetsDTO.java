@@ -0,0 +1,64 @@
+package com.abn.recipeman.application.model.dto;
+
+import com.abn.recipeman.application.service.RecipeAttributeType;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * The number of recipes of an inquiry result per attribute, per serving number and for its most used ingredients.
+ * Values without any recipe are left out.
+ */
+public class RecipeFacetsDTO implements Serializable {
+
+    private final long total;
+
+    private final Map<RecipeAttributeType, Long> attributes;
+
+    private final Map<Integer, Long> servingNumbers;
+
+    private final Map<String, Long> ingredients;
+
+    public RecipeFacetsDTO(long total, Map<RecipeAttributeType, Long> attributes, Map<Integer, Long> servingNumbers, Map<String, Long> ingredients) {
+        this.total = total;
+        this.attributes = attributes;
+        this.servingNumbers = servingNumbers;
+        this.ingredients = ingredients;
+    }
+
+    /**
+     * @return the number of recipes of the result.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public Map<RecipeAttributeType, Long> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return the counts by serving number, in serving number order.
+     */
+    public Map<Integer, Long> getServingNumbers() {
+        return servingNumbers;
+    }
+
+    /**
+     * @return the counts by ingredient name, the most used ingredient first.
+     */
+    public Map<String, Long> getIngredients() {
+        return ingredients;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeFacetsDTO{" +
+                "total=" + getTotal() +
+                ", attributes=" + getAttributes() +
+                ", servingNumbers=" + getServingNumbers() +
+                ", ingredients=" + getIngredients() +
+                "}";
+    }
+}
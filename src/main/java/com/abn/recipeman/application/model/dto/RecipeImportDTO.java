@@ -0,0 +1,83 @@
+package com.abn.recipeman.application.model.dto;
+
+import com.abn.recipeman.application.service.RecipeAttributeType;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A recipe of a bulk import, with its ingredients and attributes referenced by name.
+ */
+public class RecipeImportDTO implements Serializable {
+
+    @NotNull
+    private String name;
+
+    @NotNull
+    private Integer servingNumber;
+
+    @NotNull
+    private String instruction;
+
+    @NotNull
+    private Set<@NotNull RecipeAttributeType> attributes = new HashSet<>();
+
+    @NotNull
+    private List<@NotNull @Valid RecipeImportIngredientDTO> ingredients = new ArrayList<>();
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getServingNumber() {
+        return servingNumber;
+    }
+
+    public void setServingNumber(Integer servingNumber) {
+        this.servingNumber = servingNumber;
+    }
+
+    public String getInstruction() {
+        return instruction;
+    }
+
+    public void setInstruction(String instruction) {
+        this.instruction = instruction;
+    }
+
+    public Set<RecipeAttributeType> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Set<RecipeAttributeType> attributes) {
+        this.attributes = attributes;
+    }
+
+    public List<RecipeImportIngredientDTO> getIngredients() {
+        return ingredients;
+    }
+
+    public void setIngredients(List<RecipeImportIngredientDTO> ingredients) {
+        this.ingredients = ingredients;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeImportDTO{" +
+                "name='" + getName() + "'" +
+                ", servingNumber=" + getServingNumber() +
+                ", attributes=" + getAttributes() +
+                ", ingredients=" + getIngredients() +
+                "}";
+    }
+}
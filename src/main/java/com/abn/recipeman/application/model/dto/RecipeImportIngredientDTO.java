@@ -0,0 +1,41 @@
+package com.abn.recipeman.application.model.dto;
+
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+
+/**
+ * An ingredient of a {@link RecipeImportDTO}, created when no ingredient has its name yet.
+ */
+public class RecipeImportIngredientDTO implements Serializable {
+
+    @NotNull
+    private String name;
+
+    @NotNull
+    private Integer amount;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeImportIngredientDTO{" +
+                "name='" + getName() + "'" +
+                ", amount=" + getAmount() +
+                "}";
+    }
+}
@@ -0,0 +1,85 @@
+package com.abn.recipeman.application.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of one {@link RecipeImportDTO} of a bulk import.
+ */
+public class RecipeImportResultDTO implements Serializable {
+
+    public enum Status {
+        /**
+         * The recipe was created.
+         */
+        CREATED,
+        /**
+         * The recipe was not valid, or its name is already taken.
+         */
+        REJECTED,
+        /**
+         * The recipe could not be written, together with the other recipes of its chunk.
+         */
+        FAILED,
+    }
+
+    private int index;
+
+    private Long id;
+
+    private Status status;
+
+    private String message;
+
+    public RecipeImportResultDTO() {
+    }
+
+    public RecipeImportResultDTO(int index, Long id, Status status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeImportResultDTO{" +
+                "index=" + getIndex() +
+                ", id=" + getId() +
+                ", status=" + getStatus() +
+                ", message='" + getMessage() + "'" +
+                "}";
+    }
+}
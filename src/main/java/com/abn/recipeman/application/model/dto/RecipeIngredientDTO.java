@@ -9,10 +9,12 @@ import java.util.Objects;
 /**
  * A DTO for the {@link RecipeIngredient} entity.
  */
-public class RecipeIngredientDTO implements Serializable {
+public class RecipeIngredientDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     @NotNull
     private Integer amount;
 
@@ -20,6 +22,40 @@ public class RecipeIngredientDTO implements Serializable {
 
     private RecipeDTO recipe;
 
+    public RecipeIngredientDTO() {
+    }
+
+    /**
+     * Used by JPQL constructor expressions, the ingredient and the recipe only hold their id like
+     * {@link com.abn.recipeman.application.model.dto.mapper.RecipeIngredientMapper} maps them.
+     */
+    public RecipeIngredientDTO(Long id, Long version, Integer amount, Long ingredientId, Long recipeId) {
+        this.id = id;
+        this.version = version;
+        this.amount = amount;
+        if (ingredientId != null) {
+            this.ingredient = new IngredientDTO();
+            this.ingredient.setId(ingredientId);
+        }
+        if (recipeId != null) {
+            this.recipe = new RecipeDTO();
+            this.recipe.setId(recipeId);
+        }
+    }
+
+    /**
+     * Used by JPQL constructor expressions reading the ingredients of a recipe, the ingredient is read in full and the
+     * recipe is left out, see {@link FullRecipeDTO}.
+     */
+    public RecipeIngredientDTO(Long id, Long version, Integer amount, Long ingredientId, Long ingredientVersion, String ingredientName) {
+        this.id = id;
+        this.version = version;
+        this.amount = amount;
+        if (ingredientId != null) {
+            this.ingredient = new IngredientDTO(ingredientId, ingredientVersion, ingredientName);
+        }
+    }
+
     public Long getId() {
         return id;
     }
@@ -28,6 +64,15 @@ public class RecipeIngredientDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Integer getAmount() {
         return amount;
     }
@@ -0,0 +1,39 @@
+package com.abn.recipeman.application.model.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A page of the recipes matching an inquiry, along with the facets of the whole result.
+ */
+public class RecipeInquiryResultDTO implements Serializable {
+
+    private final List<RecipeDTO> recipes;
+
+    private final RecipeFacetsDTO facets;
+
+    public RecipeInquiryResultDTO(List<RecipeDTO> recipes, RecipeFacetsDTO facets) {
+        this.recipes = recipes;
+        this.facets = facets;
+    }
+
+    public List<RecipeDTO> getRecipes() {
+        return recipes;
+    }
+
+    /**
+     * @return the facets, {@code null} while they cannot be computed from memory.
+     */
+    public RecipeFacetsDTO getFacets() {
+        return facets;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeInquiryResultDTO{" +
+                "recipes=" + getRecipes() +
+                ", facets=" + getFacets() +
+                "}";
+    }
+}
@@ -0,0 +1,13 @@
+package com.abn.recipeman.application.model.dto;
+
+/**
+ * A DTO of a versioned entity, carrying the version it was read at and, in a write, the version it is expected to
+ * replace.
+ */
+public interface VersionedDTO {
+
+    /**
+     * @return the entity version, {@code null} if unknown.
+     */
+    Long getVersion();
+}
@@ -2,23 +2,28 @@ package com.abn.recipeman.application.service;
 
 import com.abn.recipeman.application.model.dto.AttributeDTO;
 import com.abn.recipeman.application.model.dto.mapper.AttributeMapper;
+import com.abn.recipeman.application.service.coalescing.SingleFlight;
 import com.abn.recipeman.domain.model.entity.Attribute;
 import com.abn.recipeman.persistence.repository.AttributeRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service Implementation for managing {@link com.abn.recipeman.domain.model.entity.Attribute}.
  */
 @Service
 @Transactional
+@Timed("recipeman.service")
 public class AttributeService {
 
     private final Logger log = LoggerFactory.getLogger(AttributeService.class);
@@ -27,9 +32,13 @@ public class AttributeService {
 
     private final AttributeMapper attributeMapper;
 
-    public AttributeService(AttributeRepository attributeRepository, AttributeMapper attributeMapper) {
+    private final SingleFlight<Long, Optional<AttributeDTO>> findOneFlight;
+
+    public AttributeService(AttributeRepository attributeRepository, AttributeMapper attributeMapper, PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
         this.attributeRepository = attributeRepository;
         this.attributeMapper = attributeMapper;
+        this.findOneFlight = new SingleFlight<>("attribute", transactionManager, meterRegistry);
     }
 
     /**
@@ -47,19 +56,30 @@ public class AttributeService {
 
     /**
      * Update a attribute.
+     * <p>
+     * The attribute is loaded, from the second-level cache when it is there, and written on flush by a single
+     * {@code update} conditioned on the version it was loaded at, which must be the version of the DTO if it has one;
+     * without a version the last write wins.
      *
      * @param attributeDTO the entity to save.
-     * @return the persisted entity.
+     * @return the persisted entity, empty if there is no such attribute.
      */
-    public AttributeDTO update(AttributeDTO attributeDTO) {
+    public Optional<AttributeDTO> update(AttributeDTO attributeDTO) {
         log.debug("Request to save Attribute : {}", attributeDTO);
-        Attribute attribute = attributeMapper.toEntity(attributeDTO);
-        attribute = attributeRepository.save(attribute);
-        return attributeMapper.toDto(attribute);
+        return attributeRepository.findById(attributeDTO.getId()).map(existingAttribute -> {
+            if (attributeDTO.getVersion() != null && attributeDTO.getVersion() != existingAttribute.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(Attribute.class, attributeDTO.getId());
+            }
+            existingAttribute.setRecipeAttributeType(attributeDTO.getRecipeAttributeType());
+
+            return existingAttribute;
+        }).map(attributeRepository::saveAndFlush).map(attributeMapper::toDto);
     }
 
     /**
      * Partially update a attribute.
+     * <p>
+     * With a version in the DTO, the attribute is only updated if it is still at that version.
      *
      * @param attributeDTO the entity to update partially.
      * @return the persisted entity.
@@ -70,6 +90,9 @@ public class AttributeService {
         return attributeRepository
                 .findById(attributeDTO.getId())
                 .map(existingAttribute -> {
+                    if (attributeDTO.getVersion() != null && attributeDTO.getVersion() != existingAttribute.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Attribute.class, attributeDTO.getId());
+                    }
                     attributeMapper.partialUpdate(existingAttribute, attributeDTO);
 
                     return existingAttribute;
@@ -86,19 +109,21 @@ public class AttributeService {
     @Transactional(readOnly = true)
     public List<AttributeDTO> findAll() {
         log.debug("Request to get all Attributes");
-        return attributeRepository.findAll().stream().map(attributeMapper::toDto).collect(Collectors.toCollection(LinkedList::new));
+        return attributeRepository.findAllAsDto();
     }
 
     /**
      * Get one attribute by id.
+     * <p>
+     * Concurrent calls for the same id outside of a transaction share one load, see {@link SingleFlight}.
      *
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<AttributeDTO> findOne(Long id) {
         log.debug("Request to get Attribute : {}", id);
-        return attributeRepository.findById(id).map(attributeMapper::toDto);
+        return findOneFlight.load(id, () -> attributeRepository.findById(id).map(attributeMapper::toDto));
     }
 
     /**
@@ -1,24 +1,34 @@
 package com.abn.recipeman.application.service;
 
+import com.abn.recipeman.application.model.dto.BatchResultDTO;
 import com.abn.recipeman.application.model.dto.IngredientDTO;
+import com.abn.recipeman.application.model.dto.IngredientSuggestionDTO;
 import com.abn.recipeman.application.model.dto.mapper.IngredientMapper;
+import com.abn.recipeman.application.service.coalescing.SingleFlight;
+import com.abn.recipeman.application.service.index.IngredientSuggestIndex;
 import com.abn.recipeman.domain.model.entity.Ingredient;
 import com.abn.recipeman.persistence.repository.IngredientRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service Implementation for managing {@link Ingredient}.
  */
 @Service
 @Transactional
+@Timed("recipeman.service")
 public class IngredientService {
 
     private final Logger log = LoggerFactory.getLogger(IngredientService.class);
@@ -27,9 +37,16 @@ public class IngredientService {
 
     private final IngredientMapper ingredientMapper;
 
-    public IngredientService(IngredientRepository ingredientRepository, IngredientMapper ingredientMapper) {
+    private final SingleFlight<Long, Optional<IngredientDTO>> findOneFlight;
+
+    private final IngredientSuggestIndex suggestIndex;
+
+    public IngredientService(IngredientRepository ingredientRepository, IngredientMapper ingredientMapper, PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry, IngredientSuggestIndex suggestIndex) {
         this.ingredientRepository = ingredientRepository;
         this.ingredientMapper = ingredientMapper;
+        this.suggestIndex = suggestIndex;
+        this.findOneFlight = new SingleFlight<>("ingredient", transactionManager, meterRegistry);
     }
 
     /**
@@ -47,19 +64,30 @@ public class IngredientService {
 
     /**
      * Update a ingredient.
+     * <p>
+     * The ingredient is loaded, from the second-level cache when it is there, and written on flush by a single
+     * {@code update} conditioned on the version it was loaded at, which must be the version of the DTO if it has one;
+     * without a version the last write wins.
      *
      * @param ingredientDTO the entity to save.
-     * @return the persisted entity.
+     * @return the persisted entity, empty if there is no such ingredient.
      */
-    public IngredientDTO update(IngredientDTO ingredientDTO) {
+    public Optional<IngredientDTO> update(IngredientDTO ingredientDTO) {
         log.debug("Request to save Ingredient : {}", ingredientDTO);
-        Ingredient ingredient = ingredientMapper.toEntity(ingredientDTO);
-        ingredient = ingredientRepository.save(ingredient);
-        return ingredientMapper.toDto(ingredient);
+        return ingredientRepository.findById(ingredientDTO.getId()).map(existingIngredient -> {
+            if (ingredientDTO.getVersion() != null && ingredientDTO.getVersion() != existingIngredient.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(Ingredient.class, ingredientDTO.getId());
+            }
+            existingIngredient.setName(ingredientDTO.getName());
+
+            return existingIngredient;
+        }).map(ingredientRepository::saveAndFlush).map(ingredientMapper::toDto);
     }
 
     /**
      * Partially update a ingredient.
+     * <p>
+     * With a version in the DTO, the ingredient is only updated if it is still at that version.
      *
      * @param ingredientDTO the entity to update partially.
      * @return the persisted entity.
@@ -70,6 +98,9 @@ public class IngredientService {
         return ingredientRepository
                 .findById(ingredientDTO.getId())
                 .map(existingIngredient -> {
+                    if (ingredientDTO.getVersion() != null && ingredientDTO.getVersion() != existingIngredient.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Ingredient.class, ingredientDTO.getId());
+                    }
                     ingredientMapper.partialUpdate(existingIngredient, ingredientDTO);
 
                     return existingIngredient;
@@ -86,19 +117,52 @@ public class IngredientService {
     @Transactional(readOnly = true)
     public List<IngredientDTO> findAll() {
         log.debug("Request to get all Ingredients");
-        return ingredientRepository.findAll().stream().map(ingredientMapper::toDto).collect(Collectors.toCollection(LinkedList::new));
+        return ingredientRepository.findAllAsDto();
+    }
+
+    /**
+     * Suggest ingredients whose name starts with the given prefix, the most used ones first.
+     * <p>
+     * Answered by the {@link IngredientSuggestIndex} alone, without a transaction nor a database connection.
+     *
+     * @param prefix the typed prefix, ignoring case.
+     * @param limit  the most suggestions to return.
+     * @return the suggested ingredients.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<IngredientSuggestionDTO> suggest(String prefix, int limit) {
+        log.debug("Request to suggest Ingredients for : {}", prefix);
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Get the ingredients of the given ids, in the order of the ids and once per id.
+     * <p>
+     * The ingredients are read from the second-level cache first, only the misses are read from the
+     * database, by chunks of ids.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities found and the ids not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchResultDTO<IngredientDTO> findAllById(List<Long> ids) {
+        log.debug("Request to get Ingredients : {}", ids);
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        return BatchResultDTO.of(distinctIds, ingredientRepository.findAllByIdInOrder(distinctIds), ingredientMapper::toDto);
     }
 
     /**
      * Get one ingredient by id.
+     * <p>
+     * Concurrent calls for the same id outside of a transaction share one load, see {@link SingleFlight}.
      *
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<IngredientDTO> findOne(Long id) {
         log.debug("Request to get Ingredient : {}", id);
-        return ingredientRepository.findById(id).map(ingredientMapper::toDto);
+        return findOneFlight.load(id, () -> ingredientRepository.findById(id).map(ingredientMapper::toDto));
     }
 
     /**
@@ -0,0 +1,181 @@
+package com.abn.recipeman.application.service;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.model.dto.RecipeImportDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportIngredientDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportResultDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportResultDTO.Status;
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Ingredient;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import com.abn.recipeman.persistence.repository.AttributeRepository;
+import com.abn.recipeman.persistence.repository.IngredientRepository;
+import com.abn.recipeman.persistence.repository.RecipeRepository;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing recipes in bulk, with their ingredients and attributes.
+ * <p>
+ * Recipes are validated up front, then written in chunks of {@code recipeman.bulk-import.chunk-size}, one transaction
+ * per chunk, through batched inserts. A chunk that cannot be written fails on its own, the chunks before it stay
+ * committed.
+ */
+@Service
+@Timed("recipeman.service")
+public class RecipeImportService {
+
+    private final Logger log = LoggerFactory.getLogger(RecipeImportService.class);
+
+    private final RecipeRepository recipeRepository;
+
+    private final IngredientRepository ingredientRepository;
+
+    private final AttributeRepository attributeRepository;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RecipeImportService(RecipeRepository recipeRepository,
+                               IngredientRepository ingredientRepository,
+                               AttributeRepository attributeRepository,
+                               Validator validator,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationProperties applicationProperties) {
+        this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.attributeRepository = attributeRepository;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Import the given recipes.
+     *
+     * @param recipes the recipes to import.
+     * @return the outcome of every recipe, in the order of the given recipes.
+     */
+    public List<RecipeImportResultDTO> importRecipes(List<RecipeImportDTO> recipes) {
+        log.debug("Request to import {} Recipes", recipes.size());
+        RecipeImportResultDTO[] results = new RecipeImportResultDTO[recipes.size()];
+        List<Integer> accepted = new ArrayList<>(recipes.size());
+        Set<String> names = new HashSet<>();
+        for (int index = 0; index < recipes.size(); index++) {
+            RecipeImportDTO recipe = recipes.get(index);
+            String violations = violations(recipe);
+            if (violations != null) {
+                results[index] = new RecipeImportResultDTO(index, null, Status.REJECTED, violations);
+            } else if (!names.add(recipe.getName())) {
+                results[index] = new RecipeImportResultDTO(index, null, Status.REJECTED, "name: is repeated in the import");
+            } else {
+                accepted.add(index);
+            }
+        }
+
+        int chunkSize = applicationProperties.getBulkImport().getChunkSize();
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(accepted.size(), from + chunkSize));
+            try {
+                transactionTemplate.executeWithoutResult(status -> importChunk(recipes, chunk, results));
+            } catch (DataAccessException | PersistenceException e) {
+                log.warn("Bulk import of {} Recipes failed: {}", chunk.size(), e.getMessage());
+                String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                chunk.forEach(index -> results[index] = new RecipeImportResultDTO(index, null, Status.FAILED, message));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void importChunk(List<RecipeImportDTO> recipes, List<Integer> chunk, RecipeImportResultDTO[] results) {
+        // imported recipes are cold, keep them from evicting what the second-level cache holds
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+
+        Set<String> takenNames = new HashSet<>(recipeRepository.findNamesByNameIn(
+                chunk.stream().map(index -> recipes.get(index).getName()).collect(Collectors.toList())));
+        Map<String, Ingredient> ingredients = ingredientRepository.findAllByNameIn(chunk.stream()
+                        .flatMap(index -> recipes.get(index).getIngredients().stream())
+                        .map(RecipeImportIngredientDTO::getName)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Ingredient::getName, Function.identity()));
+        Map<RecipeAttributeType, Attribute> attributes = attributeRepository.findAll().stream()
+                .collect(Collectors.toMap(Attribute::getRecipeAttributeType, Function.identity()));
+
+        Map<Integer, Long> created = new LinkedHashMap<>();
+        for (Integer index : chunk) {
+            RecipeImportDTO recipeImport = recipes.get(index);
+            if (takenNames.contains(recipeImport.getName())) {
+                results[index] = new RecipeImportResultDTO(index, null, Status.REJECTED, "name: is already taken");
+                continue;
+            }
+            Recipe recipe = new Recipe()
+                    .name(recipeImport.getName())
+                    .servingNumber(recipeImport.getServingNumber())
+                    .instruction(recipeImport.getInstruction());
+            for (RecipeAttributeType type : recipeImport.getAttributes()) {
+                // only the owning side, adding to Attribute.recipes would load every recipe having the attribute
+                recipe.getAttributes().add(attributes.computeIfAbsent(type, this::createAttribute));
+            }
+            for (RecipeImportIngredientDTO ingredientImport : recipeImport.getIngredients()) {
+                Ingredient ingredient = ingredients.computeIfAbsent(ingredientImport.getName(), this::createIngredient);
+                recipe.addRecipeIngredient(new RecipeIngredient().amount(ingredientImport.getAmount()).ingredient(ingredient));
+            }
+            entityManager.persist(recipe);
+            created.put(index, recipe.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        created.forEach((index, id) -> results[index] = new RecipeImportResultDTO(index, id, Status.CREATED, null));
+    }
+
+    private Attribute createAttribute(RecipeAttributeType type) {
+        Attribute attribute = new Attribute().recipeAttributeType(type);
+        entityManager.persist(attribute);
+        return attribute;
+    }
+
+    private Ingredient createIngredient(String name) {
+        Ingredient ingredient = new Ingredient().name(name);
+        entityManager.persist(ingredient);
+        return ingredient;
+    }
+
+    private String violations(RecipeImportDTO recipe) {
+        if (recipe == null) {
+            return "recipe: must not be null";
+        }
+        Set<ConstraintViolation<RecipeImportDTO>> violations = validator.validate(recipe);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -1,16 +1,26 @@
 package com.abn.recipeman.application.service;
 
+import com.abn.recipeman.application.model.dto.BatchResultDTO;
 import com.abn.recipeman.application.model.dto.RecipeIngredientDTO;
 import com.abn.recipeman.application.model.dto.mapper.RecipeIngredientMapper;
+import com.abn.recipeman.domain.model.entity.Ingredient;
+import com.abn.recipeman.domain.model.entity.Recipe;
 import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import com.abn.recipeman.persistence.repository.IngredientRepository;
 import com.abn.recipeman.persistence.repository.RecipeIngredientRepository;
+import com.abn.recipeman.persistence.repository.RecipeRepository;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -19,6 +29,7 @@ import java.util.stream.Collectors;
  */
 @Service
 @Transactional
+@Timed("recipeman.service")
 public class RecipeIngredientService {
 
     private final Logger log = LoggerFactory.getLogger(RecipeIngredientService.class);
@@ -27,9 +38,16 @@ public class RecipeIngredientService {
 
     private final RecipeIngredientMapper recipeIngredientMapper;
 
-    public RecipeIngredientService(RecipeIngredientRepository recipeIngredientRepository, RecipeIngredientMapper recipeIngredientMapper) {
+    private final IngredientRepository ingredientRepository;
+
+    private final RecipeRepository recipeRepository;
+
+    public RecipeIngredientService(RecipeIngredientRepository recipeIngredientRepository, RecipeIngredientMapper recipeIngredientMapper,
+                                   IngredientRepository ingredientRepository, RecipeRepository recipeRepository) {
         this.recipeIngredientRepository = recipeIngredientRepository;
         this.recipeIngredientMapper = recipeIngredientMapper;
+        this.ingredientRepository = ingredientRepository;
+        this.recipeRepository = recipeRepository;
     }
 
     /**
@@ -47,19 +65,41 @@ public class RecipeIngredientService {
 
     /**
      * Update a recipeIngredient.
+     * <p>
+     * The recipe ingredient is loaded, from the second-level cache when it is there, and written on flush by a single
+     * {@code update} conditioned on the version it was loaded at, which must be the version of the DTO if it has one;
+     * without a version the last write wins. Being loaded, its old recipe is known to the listeners when it is moved
+     * to another recipe.
      *
      * @param recipeIngredientDTO the entity to save.
-     * @return the persisted entity.
+     * @return the persisted entity, empty if there is no such recipe ingredient.
      */
-    public RecipeIngredientDTO update(RecipeIngredientDTO recipeIngredientDTO) {
+    public Optional<RecipeIngredientDTO> update(RecipeIngredientDTO recipeIngredientDTO) {
         log.debug("Request to save RecipeIngredient : {}", recipeIngredientDTO);
-        RecipeIngredient recipeIngredient = recipeIngredientMapper.toEntity(recipeIngredientDTO);
-        recipeIngredient = recipeIngredientRepository.save(recipeIngredient);
-        return recipeIngredientMapper.toDto(recipeIngredient);
+        return recipeIngredientRepository.findById(recipeIngredientDTO.getId()).map(existingRecipeIngredient -> {
+            if (recipeIngredientDTO.getVersion() != null && recipeIngredientDTO.getVersion() != existingRecipeIngredient.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(RecipeIngredient.class, recipeIngredientDTO.getId());
+            }
+            existingRecipeIngredient.setAmount(recipeIngredientDTO.getAmount());
+            Long ingredientId = recipeIngredientDTO.getIngredient() == null ? null : recipeIngredientDTO.getIngredient().getId();
+            Ingredient ingredient = existingRecipeIngredient.getIngredient();
+            if (!Objects.equals(ingredientId, ingredient == null ? null : ingredient.getId())) {
+                existingRecipeIngredient.setIngredient(ingredientId == null ? null : ingredientRepository.getReferenceById(ingredientId));
+            }
+            Long recipeId = recipeIngredientDTO.getRecipe() == null ? null : recipeIngredientDTO.getRecipe().getId();
+            Recipe recipe = existingRecipeIngredient.getRecipe();
+            if (!Objects.equals(recipeId, recipe == null ? null : recipe.getId())) {
+                existingRecipeIngredient.setRecipe(recipeId == null ? null : recipeRepository.getReferenceById(recipeId));
+            }
+
+            return existingRecipeIngredient;
+        }).map(recipeIngredientRepository::saveAndFlush).map(recipeIngredientMapper::toDto);
     }
 
     /**
      * Partially update a recipeIngredient.
+     * <p>
+     * With a version in the DTO, the recipe ingredient is only updated if it is still at that version.
      *
      * @param recipeIngredientDTO the entity to update partially.
      * @return the persisted entity.
@@ -68,6 +108,9 @@ public class RecipeIngredientService {
         log.debug("Request to partially update RecipeIngredient : {}", recipeIngredientDTO);
 
         return recipeIngredientRepository.findById(recipeIngredientDTO.getId()).map(existingRecipeIngredient -> {
+            if (recipeIngredientDTO.getVersion() != null && recipeIngredientDTO.getVersion() != existingRecipeIngredient.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(RecipeIngredient.class, recipeIngredientDTO.getId());
+            }
             recipeIngredientMapper.partialUpdate(existingRecipeIngredient, recipeIngredientDTO);
 
             return existingRecipeIngredient;
@@ -82,7 +125,23 @@ public class RecipeIngredientService {
     @Transactional(readOnly = true)
     public List<RecipeIngredientDTO> findAll() {
         log.debug("Request to get all RecipeIngredients");
-        return recipeIngredientRepository.findAll().stream().map(recipeIngredientMapper::toDto).collect(Collectors.toCollection(LinkedList::new));
+        return recipeIngredientRepository.findAllAsDto();
+    }
+
+    /**
+     * Get the recipeIngredients of the given ids, in the order of the ids and once per id.
+     * <p>
+     * The recipeIngredients are read from the second-level cache first, only the misses are read from the
+     * database, by chunks of ids.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities found and the ids not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchResultDTO<RecipeIngredientDTO> findAllById(List<Long> ids) {
+        log.debug("Request to get RecipeIngredients : {}", ids);
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        return BatchResultDTO.of(distinctIds, recipeIngredientRepository.findAllByIdInOrder(distinctIds), recipeIngredientMapper::toDto);
     }
 
     /**
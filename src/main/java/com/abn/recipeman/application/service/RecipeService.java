@@ -1,42 +1,100 @@
 package com.abn.recipeman.application.service;
 
+import com.abn.recipeman.application.model.dto.AttributeDTO;
+import com.abn.recipeman.application.model.dto.BatchResultDTO;
 import com.abn.recipeman.application.model.dto.FilterRecipeDto;
+import com.abn.recipeman.application.model.dto.FullRecipeDTO;
 import com.abn.recipeman.application.model.dto.RecipeDTO;
+import com.abn.recipeman.application.model.dto.RecipeFacetsDTO;
+import com.abn.recipeman.application.model.dto.RecipeInquiryResultDTO;
+import com.abn.recipeman.application.model.dto.mapper.AttributeMapper;
 import com.abn.recipeman.application.model.dto.mapper.RecipeMapper;
+import com.abn.recipeman.application.service.aggregate.FullRecipeCache;
+import com.abn.recipeman.application.service.coalescing.SingleFlight;
+import com.abn.recipeman.application.service.index.RecipeSimilarityIndex;
+import com.abn.recipeman.application.service.inquiry.RecipeInquiryCache;
+import com.abn.recipeman.application.service.inquiry.RecipeInquiryExecutor;
+import com.abn.recipeman.application.service.inquiry.RecipeInquiryPlan;
+import com.abn.recipeman.application.service.json.RecipeJsonCache;
+import com.abn.recipeman.application.service.json.SerializedRecipe;
+import com.abn.recipeman.application.service.version.Stamped;
+import com.abn.recipeman.domain.model.entity.Attribute;
 import com.abn.recipeman.domain.model.entity.Recipe;
 import com.abn.recipeman.persistence.repository.AttributeRepository;
 import com.abn.recipeman.persistence.repository.RecipeIngredientRepository;
 import com.abn.recipeman.persistence.repository.RecipeRepository;
+import com.abn.recipeman.persistence.repository.projection.RecipeAttributeId;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service Implementation for managing {@link com.abn.recipeman.domain.model.entity.Recipe}.
  */
 @Service
 @Transactional
+@Timed("recipeman.service")
 public class RecipeService {
 
     private final Logger log = LoggerFactory.getLogger(RecipeService.class);
 
     private final RecipeRepository recipeRepository;
-    private final AttributeRepository attributeRepository;
-    private final RecipeIngredientRepository recipeIngredientRepository;
+
+    private final RecipeInquiryExecutor recipeInquiryExecutor;
+
+    private final RecipeInquiryCache recipeInquiryCache;
 
     private final RecipeMapper recipeMapper;
 
-    public RecipeService(RecipeRepository recipeRepository, AttributeRepository attributeRepository, RecipeIngredientRepository recipeIngredientRepository, RecipeMapper recipeMapper) {
+    private final MeterRegistry meterRegistry;
+
+    private final SingleFlight<Long, Optional<RecipeDTO>> findOneFlight;
+
+    private final RecipeSimilarityIndex recipeSimilarityIndex;
+
+    private final RecipeIngredientRepository recipeIngredientRepository;
+
+    private final AttributeMapper attributeMapper;
+
+    private final FullRecipeCache fullRecipeCache;
+
+    private final RecipeJsonCache recipeJsonCache;
+
+    private final AttributeRepository attributeRepository;
+
+    public RecipeService(RecipeRepository recipeRepository, RecipeInquiryExecutor recipeInquiryExecutor, RecipeInquiryCache recipeInquiryCache, RecipeMapper recipeMapper,
+                         MeterRegistry meterRegistry, PlatformTransactionManager transactionManager, RecipeSimilarityIndex recipeSimilarityIndex,
+                         RecipeIngredientRepository recipeIngredientRepository, AttributeMapper attributeMapper, FullRecipeCache fullRecipeCache,
+                         RecipeJsonCache recipeJsonCache, AttributeRepository attributeRepository) {
         this.recipeRepository = recipeRepository;
-        this.attributeRepository = attributeRepository;
-        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.recipeInquiryExecutor = recipeInquiryExecutor;
+        this.recipeInquiryCache = recipeInquiryCache;
         this.recipeMapper = recipeMapper;
+        this.meterRegistry = meterRegistry;
+        this.findOneFlight = new SingleFlight<>("recipe", transactionManager, meterRegistry);
+        this.recipeSimilarityIndex = recipeSimilarityIndex;
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.attributeMapper = attributeMapper;
+        this.fullRecipeCache = fullRecipeCache;
+        this.recipeJsonCache = recipeJsonCache;
+        this.attributeRepository = attributeRepository;
     }
 
     /**
@@ -54,19 +112,36 @@ public class RecipeService {
 
     /**
      * Update a recipe.
+     * <p>
+     * The recipe is loaded, from the second-level cache when it is there, and written on flush by a single
+     * {@code update} conditioned on the version it was loaded at, which must be the version of the DTO if it has one;
+     * without a version the last write wins. Only the attributes added or removed are written to the join table.
      *
      * @param recipeDTO the entity to save.
-     * @return the persisted entity.
+     * @return the persisted entity, empty if there is no such recipe.
      */
-    public RecipeDTO update(RecipeDTO recipeDTO) {
+    public Optional<RecipeDTO> update(RecipeDTO recipeDTO) {
         log.debug("Request to save Recipe : {}", recipeDTO);
-        Recipe recipe = recipeMapper.toEntity(recipeDTO);
-        recipe = recipeRepository.save(recipe);
-        return recipeMapper.toDto(recipe);
+        return recipeRepository.findById(recipeDTO.getId()).map(existingRecipe -> {
+            if (recipeDTO.getVersion() != null && recipeDTO.getVersion() != existingRecipe.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(Recipe.class, recipeDTO.getId());
+            }
+            existingRecipe.setName(recipeDTO.getName());
+            existingRecipe.setServingNumber(recipeDTO.getServingNumber());
+            existingRecipe.setInstruction(recipeDTO.getInstruction());
+            Set<Long> attributeIds = recipeDTO.getAttributes().stream().map(AttributeDTO::getId).collect(Collectors.toSet());
+            existingRecipe.getAttributes().removeIf(attribute -> !attributeIds.contains(attribute.getId()));
+            existingRecipe.getAttributes().forEach(attribute -> attributeIds.remove(attribute.getId()));
+            attributeIds.forEach(attributeId -> existingRecipe.getAttributes().add(attributeRepository.getReferenceById(attributeId)));
+
+            return existingRecipe;
+        }).map(recipeRepository::saveAndFlush).map(recipeMapper::toDto);
     }
 
     /**
      * Partially update a recipe.
+     * <p>
+     * With a version in the DTO, the recipe is only updated if it is still at that version.
      *
      * @param recipeDTO the entity to update partially.
      * @return the persisted entity.
@@ -77,6 +152,9 @@ public class RecipeService {
         return recipeRepository
                 .findById(recipeDTO.getId())
                 .map(existingRecipe -> {
+                    if (recipeDTO.getVersion() != null && recipeDTO.getVersion() != existingRecipe.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Recipe.class, recipeDTO.getId());
+                    }
                     recipeMapper.partialUpdate(existingRecipe, recipeDTO);
 
                     return existingRecipe;
@@ -87,17 +165,72 @@ public class RecipeService {
 
     /**
      * Get all the recipes.
+     * <p>
+     * The recipes and their attribute ids are read straight into DTOs, without loading any entity.
      *
      * @return the list of entities.
      */
     @Transactional(readOnly = true)
     public List<RecipeDTO> findAll() {
         log.debug("Request to get all Recipes");
-        return recipeRepository
-                .findAllWithEagerRelationships()
-                .stream()
-                .map(recipeMapper::toDto)
-                .collect(Collectors.toCollection(LinkedList::new));
+        List<RecipeDTO> recipes = recipeRepository.findAllAsDto();
+        Map<Long, RecipeDTO> recipesById = recipes.stream().collect(Collectors.toMap(RecipeDTO::getId, Function.identity()));
+        recipeRepository.findAllAttributeIds().forEach(row -> {
+            RecipeDTO recipe = recipesById.get(row.getRecipeId());
+            if (recipe == null) {
+                // links of recipes created between the two queries have no recipe row, skip them
+                return;
+            }
+            AttributeDTO attribute = new AttributeDTO();
+            attribute.setId(row.getAttributeId());
+            recipe.getAttributes().add(attribute);
+        });
+        return recipes;
+    }
+
+    /**
+     * Pass every recipe to the consumer, in id order, as it is read from the database.
+     * <p>
+     * The recipes and their attribute ids are read by two cursors ordered by recipe id and merged, no entity is
+     * loaded and nothing is kept once passed, so the memory used does not depend on the size of the catalog.
+     *
+     * @param consumer the consumer of the recipes.
+     */
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<RecipeDTO> consumer) {
+        log.debug("Request to export all Recipes");
+        try (Stream<RecipeDTO> recipes = recipeRepository.streamAllAsDto();
+             Stream<RecipeAttributeId> attributeIds = recipeRepository.streamAllAttributeIds()) {
+            Iterator<RecipeAttributeId> attributeIterator = attributeIds.iterator();
+            RecipeAttributeId nextAttribute = attributeIterator.hasNext() ? attributeIterator.next() : null;
+            for (Iterator<RecipeDTO> recipeIterator = recipes.iterator(); recipeIterator.hasNext(); ) {
+                RecipeDTO recipe = recipeIterator.next();
+                // links of recipes created between the two queries have no recipe row, skip them
+                while (nextAttribute != null && nextAttribute.getRecipeId() <= recipe.getId()) {
+                    if (nextAttribute.getRecipeId().equals(recipe.getId())) {
+                        AttributeDTO attribute = new AttributeDTO();
+                        attribute.setId(nextAttribute.getAttributeId());
+                        recipe.getAttributes().add(attribute);
+                    }
+                    nextAttribute = attributeIterator.hasNext() ? attributeIterator.next() : null;
+                }
+                consumer.accept(recipe);
+            }
+        }
+    }
+
+    /**
+     * Get the recipes following the given id, in id order, with a seek on the primary key.
+     *
+     * @param afterId the last id the client has seen, or {@code null} to start from the first recipe.
+     * @param size    the size of the slice.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<RecipeDTO> findAllAfter(Long afterId, int size) {
+        log.debug("Request to get Recipes after : {}", afterId);
+        List<Long> ids = recipeRepository.findIdsAfter(afterId == null ? Long.MIN_VALUE : afterId, PageRequest.of(0, size + 1));
+        return toSlice(ids, size);
     }
 
     /**
@@ -109,16 +242,94 @@ public class RecipeService {
         return recipeRepository.findAllWithEagerRelationships(pageable).map(recipeMapper::toDto);
     }
 
+    /**
+     * Get the recipes of the given ids, in the order of the ids and once per id.
+     * <p>
+     * The recipes and their attributes are read from the second-level cache first, only the misses are read from the
+     * database, by chunks of ids.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities found and the ids not found.
+     */
+    @Transactional(readOnly = true)
+    public BatchResultDTO<RecipeDTO> findAllById(List<Long> ids) {
+        log.debug("Request to get Recipes : {}", ids);
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        return BatchResultDTO.of(distinctIds, recipeRepository.findAllWithEagerRelationshipsByIdInOrder(distinctIds), recipeMapper::toDto);
+    }
+
     /**
      * Get one recipe by id.
+     * <p>
+     * Concurrent calls for the same id outside of a transaction share one load, see {@link SingleFlight}.
      *
      * @param id the id of the entity.
      * @return the entity.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<RecipeDTO> findOne(Long id) {
         log.debug("Request to get Recipe : {}", id);
-        return recipeRepository.findOneWithEagerRelationships(id).map(recipeMapper::toDto);
+        return findOneFlight.load(id, () -> recipeRepository.findOneWithEagerRelationships(id).map(recipeMapper::toDto));
+    }
+
+    /**
+     * Get the JSON of one recipe by id, as {@link #findOne(Long)} would be written.
+     * <p>
+     * The JSON is taken from the {@link RecipeJsonCache}, so a hot recipe is neither loaded, mapped nor serialized, and
+     * concurrent misses share one load.
+     *
+     * @param id the id of the entity.
+     * @return the JSON of the entity.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<SerializedRecipe> findOneSerialized(Long id) {
+        log.debug("Request to get serialized Recipe : {}", id);
+        return recipeJsonCache.get(id, () -> recipeRepository.findOneWithEagerRelationships(id).map(recipeMapper::toDto));
+    }
+
+    /**
+     * Get one recipe by id with its attributes in full, and its ingredients with their name and amount.
+     * <p>
+     * The recipe is taken from the {@link FullRecipeCache}; on a miss it is read with two statements, one for the
+     * recipe and its attributes and one for its ingredients, shared by the concurrent calls for the same id.
+     *
+     * @param id the id of the entity.
+     * @return the entity, with the stamp it was read at.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<Stamped<FullRecipeDTO>> findOneFull(Long id) {
+        log.debug("Request to get full Recipe : {}", id);
+        return fullRecipeCache.get(id, () -> recipeRepository
+                .findAllWithEagerRelationshipsByIdIn(Collections.singletonList(id))
+                .stream()
+                .findFirst()
+                .map(recipe -> new FullRecipeDTO(
+                        recipeMapper.toDto(recipe),
+                        recipe.getAttributes().stream().map(attributeMapper::toDto).collect(Collectors.toSet()),
+                        recipeIngredientRepository.findWithIngredientByRecipeIdAsDto(id))));
+    }
+
+    /**
+     * Get the recipes sharing the most ingredients with the "id" recipe, the most similar first.
+     * <p>
+     * The recipes are found by the {@link RecipeSimilarityIndex}, only their page is read from the database.
+     *
+     * @param id    the id of the recipe.
+     * @param limit the most recipes to return.
+     * @return the list of entities, empty if the recipe does not exist or uses no ingredient.
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeDTO> findSimilar(Long id, int limit) {
+        log.debug("Request to get Recipes similar to : {}", id);
+        List<Long> ids = recipeSimilarityIndex.similarRecipes(id, limit);
+        if (ids.isEmpty()) {
+            return new LinkedList<>();
+        }
+        Map<Long, RecipeDTO> recipes = recipeRepository.findAllWithEagerRelationshipsByIdIn(ids)
+                .stream()
+                .map(recipeMapper::toDto)
+                .collect(Collectors.toMap(RecipeDTO::getId, Function.identity()));
+        return ids.stream().map(recipes::get).filter(Objects::nonNull).collect(Collectors.toCollection(LinkedList::new));
     }
 
     /**
@@ -132,34 +343,98 @@ public class RecipeService {
     }
 
     /**
-     * Get all the recipes.
+     * Get all the recipes matching the filter.
+     * <p>
+     * A recipe matches when it has every requested attribute, uses every included ingredient, uses none of the excluded
+     * ingredients, and matches the serving number and instruction text when given. A filter without any criterion
+     * matches nothing.
+     * <p>
+     * Results are cached by {@link RecipeInquiryCache} until the next write.
      *
+     * @param filterRecipeDto the filter to apply.
+     * @param pageable        the pagination information.
      * @return the list of entities.
      */
     @Transactional(readOnly = true)
     public List<RecipeDTO> inquiryRecipes(FilterRecipeDto filterRecipeDto, Pageable pageable) {
         log.debug("Request to inquiry Recipes");
-        Set<Long> filteredRecipeIds = new HashSet<>();
-        if (filterRecipeDto.getAttributes() != null && filterRecipeDto.getAttributes().size() > 0) {
-            filteredRecipeIds.addAll(recipeRepository.findAllByAttributesIn(new HashSet<>(attributeRepository.findAllByRecipeAttributeTypeIn(filterRecipeDto.getAttributes()))).stream().map(Recipe::getId).collect(Collectors.toSet()));
+        RecipeInquiryPlan plan = countedPlan(filterRecipeDto);
+        if (plan.isEmpty()) {
+            return new LinkedList<>();
         }
-        if (filterRecipeDto.getExcludeIngredients() != null && filterRecipeDto.getExcludeIngredients().size() > 0) {
-            filteredRecipeIds.addAll(recipeIngredientRepository.findAllByIngredientNames(filterRecipeDto.getExcludeIngredients()).stream().map(recIng -> recIng.getRecipe().getId()).collect(Collectors.toSet()));
+        return recipeInquiryCache.get(plan, pageable, () -> recipeRepository
+                .findAllWithEagerRelationshipsByIdIn(recipeInquiryExecutor.execute(plan, pageable))
+                .stream()
+                .map(recipeMapper::toDto)
+                .collect(Collectors.toCollection(LinkedList::new)), List::size);
+    }
+
+    /**
+     * Get a page of the recipes matching the filter, along with the facets of all of them: the number of recipes per
+     * attribute, per serving number and for the most used ingredients.
+     * <p>
+     * The facets are counted by the {@link com.abn.recipeman.application.service.index.RecipeFilterIndex} and cached
+     * like the pages; they are left out while the filter can only be answered by the database.
+     *
+     * @param filterRecipeDto  the filter to apply.
+     * @param pageable         the pagination information.
+     * @param facetIngredients the number of ingredients to count.
+     * @return the page of entities and the facets.
+     * @see #inquiryRecipes(FilterRecipeDto, Pageable)
+     */
+    @Transactional(readOnly = true)
+    public RecipeInquiryResultDTO inquiryRecipesWithFacets(FilterRecipeDto filterRecipeDto, Pageable pageable, int facetIngredients) {
+        log.debug("Request to inquiry Recipes with facets");
+        List<RecipeDTO> recipes = inquiryRecipes(filterRecipeDto, pageable);
+        RecipeInquiryPlan plan = RecipeInquiryPlan.of(filterRecipeDto);
+        if (plan.isEmpty()) {
+            return new RecipeInquiryResultDTO(recipes, null);
         }
-        if (filterRecipeDto.getIncludeIngredients() != null && filterRecipeDto.getIncludeIngredients().size() > 0) {
-            filteredRecipeIds.addAll(recipeIngredientRepository.findAllByIngredientNames(filterRecipeDto.getIncludeIngredients()).stream().map(recIng -> recIng.getRecipe().getId()).collect(Collectors.toSet()));
+        Optional<RecipeFacetsDTO> facets = recipeInquiryCache.get(plan, Arrays.asList("facets", facetIngredients),
+                () -> recipeInquiryExecutor.facets(plan, facetIngredients), result -> 1);
+        return new RecipeInquiryResultDTO(recipes, facets.orElse(null));
+    }
+
+    /**
+     * Get the recipes matching the filter and following the given id, in id order.
+     *
+     * @param filterRecipeDto the filter to apply.
+     * @param afterId         the last id the client has seen, or {@code null} to start from the first recipe.
+     * @param size            the size of the slice.
+     * @return the slice of entities.
+     * @see #inquiryRecipes(FilterRecipeDto, Pageable)
+     */
+    @Transactional(readOnly = true)
+    public Slice<RecipeDTO> inquiryRecipesAfter(FilterRecipeDto filterRecipeDto, Long afterId, int size) {
+        log.debug("Request to inquiry Recipes after : {}", afterId);
+        RecipeInquiryPlan plan = countedPlan(filterRecipeDto);
+        if (plan.isEmpty()) {
+            return new SliceImpl<>(new LinkedList<>(), PageRequest.of(0, size), false);
         }
+        return recipeInquiryCache.get(plan, Arrays.asList(afterId, size), () -> toSlice(recipeInquiryExecutor.executeAfter(plan, afterId, size + 1), size),
+                Slice::getNumberOfElements);
+    }
 
-        return recipeRepository
-                .inquiryAllByIdsWithEagerRelationships(
-                        filteredRecipeIds.isEmpty() ? null: filteredRecipeIds,
-                        filterRecipeDto.getServingNumber(),
-                        filterRecipeDto.getFilterInstruction(),
-                        pageable
-                )
+    /**
+     * Plan the inquiry, counting it under {@code recipeman.inquiry.requests} by the shape of its filter.
+     */
+    private RecipeInquiryPlan countedPlan(FilterRecipeDto filterRecipeDto) {
+        RecipeInquiryPlan plan = RecipeInquiryPlan.of(filterRecipeDto);
+        meterRegistry.counter("recipeman.inquiry.requests", "shape", plan.shape()).increment();
+        return plan;
+    }
+
+    /**
+     * Load a slice from the ids of its recipes, one more than the slice size being fetched to know if a next one exists.
+     */
+    private Slice<RecipeDTO> toSlice(List<Long> ids, int size) {
+        boolean hasNext = ids.size() > size;
+        List<RecipeDTO> content = recipeRepository
+                .findAllWithEagerRelationshipsByIdIn(hasNext ? ids.subList(0, size) : ids)
                 .stream()
                 .map(recipeMapper::toDto)
                 .collect(Collectors.toCollection(LinkedList::new));
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
     }
 
 }
@@ -0,0 +1,104 @@
+package com.abn.recipeman.application.service.aggregate;
+
+import com.abn.recipeman.application.model.dto.AttributeDTO;
+import com.abn.recipeman.application.model.dto.FullRecipeDTO;
+import com.abn.recipeman.application.service.coalescing.SingleFlight;
+import com.abn.recipeman.application.service.version.EntityVersions;
+import com.abn.recipeman.application.service.version.Stamped;
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Ingredient;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of {@link FullRecipeDTO}s keyed by the recipe id.
+ * <p>
+ * Every entry holds the {@link #stamp(FullRecipeDTO) stamp} of everything it is made of, as of before it was loaded,
+ * and is only used while the stamp is current, so a write is never hidden, even when it races with the read that cached the entry.
+ * Concurrent misses of the same recipe share one load, see {@link SingleFlight}, and all get the entry of the load they
+ * joined, with the stamp its leader read: a caller joining a load begun before a write gets a recipe that is stale for
+ * its own stamp, so the stamp of the entry, not the current one, is the one to tag it with. Recipes read inside a
+ * read-write transaction may contain its uncommitted writes, so they are neither cached nor taken from the cache, and
+ * recipes not found are not cached.
+ */
+@Component
+public class FullRecipeCache {
+
+    public static final String CACHE_NAME = FullRecipeCache.class.getName();
+
+    private final EntityVersions versions;
+
+    private final Cache<Object, Object> cache;
+
+    private final SingleFlight<Long, Optional<Stamped<FullRecipeDTO>>> loadFlight;
+
+    public FullRecipeCache(EntityVersions versions, CacheManager cacheManager, PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.versions = versions;
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.loadFlight = new SingleFlight<>("recipe-full", transactionManager, meterRegistry);
+    }
+
+    /**
+     * The current stamp of a full recipe: the version of the recipe, which its recipe ingredients advance too, and of
+     * the attributes and ingredients it holds, so the writes of other attributes and ingredients leave it alone.
+     *
+     * @param recipe the full recipe.
+     * @return the stamp.
+     */
+    public long stamp(FullRecipeDTO recipe) {
+        return Math.max(versions.version(Recipe.class, recipe.getId()), versions.version(parts(recipe)));
+    }
+
+    /**
+     * Get the cached full recipe, loading and caching it if absent or stale.
+     *
+     * @param id     the id of the recipe.
+     * @param loader loads the full recipe, in a read-only transaction unless the caller is in a transaction already.
+     * @return the full recipe, not to be modified, with the stamp read before it was loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Stamped<FullRecipeDTO>> get(Long id, Supplier<Optional<FullRecipeDTO>> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return load(id, loader);
+        }
+        Stamped<FullRecipeDTO> cached = (Stamped<FullRecipeDTO>) cache.get(id);
+        if (cached != null && cached.getStamp() == stamp(cached.getValue())) {
+            return Optional.of(cached);
+        }
+        return loadFlight.load(id, () -> {
+            Optional<Stamped<FullRecipeDTO>> loaded = load(id, loader);
+            loaded.ifPresent(value -> cache.put(id, value));
+            return loaded;
+        });
+    }
+
+    private Optional<Stamped<FullRecipeDTO>> load(Long id, Supplier<Optional<FullRecipeDTO>> loader) {
+        // read before loading, so a recipe racing with a write is stored under a stamp it may be stale for; the parts
+        // are only known once loaded, so their versions are taken up to the greatest one read before
+        long stamp = versions.version(Recipe.class, id);
+        long ceiling = Math.max(versions.version(Attribute.class), versions.version(Ingredient.class));
+        return loader.get().map(recipe -> new Stamped<>(Math.max(stamp, versions.version(parts(recipe), ceiling)), recipe));
+    }
+
+    private static Map<Class<?>, List<Long>> parts(FullRecipeDTO recipe) {
+        return Map.of(
+                Attribute.class, recipe.getAttributes().stream().map(AttributeDTO::getId).collect(Collectors.toList()),
+                Ingredient.class, recipe.getIngredients().stream()
+                        .map(recipeIngredient -> recipeIngredient.getIngredient() == null ? null : recipeIngredient.getIngredient().getId())
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,203 @@
+package com.abn.recipeman.application.service.catalog;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.service.RecipeAttributeType;
+import com.abn.recipeman.application.service.catalog.SyntheticCatalog.SyntheticRecipe;
+import com.abn.recipeman.application.service.index.RecipeFilterIndex;
+import com.abn.recipeman.application.service.index.RecipeFilterIndexLoader;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Writes the {@link SyntheticCatalog} configured under {@code recipeman.catalog} straight to the database, with
+ * batched JDBC statements from several threads.
+ * <p>
+ * Recipes are written in blocks of {@code batch-size}, one transaction per block, and recipes already present are
+ * skipped, so an interrupted generation can simply be run again. Ids are taken from the Hibernate identifier
+ * generator, so they never collide with the ones the application hands out. As Hibernate does not see these writes,
+ * the second-level cache is emptied once the catalog is written and the filter indexes reload every written block.
+ */
+@Service
+public class CatalogGenerator {
+
+    private final Logger log = LoggerFactory.getLogger(CatalogGenerator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    private final RecipeFilterIndex index;
+
+    private final RecipeFilterIndexLoader indexLoader;
+
+    private final ApplicationProperties.Catalog properties;
+
+    public CatalogGenerator(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            EntityManagerFactory entityManagerFactory,
+                            RecipeFilterIndex index,
+                            RecipeFilterIndexLoader indexLoader,
+                            ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.index = index;
+        this.indexLoader = indexLoader;
+        this.properties = applicationProperties.getCatalog();
+    }
+
+    /**
+     * Make sure the first {@code size} recipes of the configured catalog are in the database.
+     *
+     * @param size the number of recipes of the catalog.
+     * @return the number of recipes written.
+     */
+    public long generate(long size) {
+        long start = System.currentTimeMillis();
+        SyntheticCatalog catalog = new SyntheticCatalog(properties.getSeed(), properties.getIngredientCount());
+        log.info("Generating a catalog of {} recipes with seed {} on {} threads", size, properties.getSeed(), properties.getThreads());
+
+        Map<RecipeAttributeType, Long> attributeIds = withIds(this::ensureAttributes);
+        long[] ingredientIds = withIds(nextId -> ensureIngredients(catalog, nextId));
+
+        AtomicLong written = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        try {
+            List<Future<?>> blocks = new ArrayList<>();
+            for (long from = 0; from < size; from += properties.getBatchSize()) {
+                long blockStart = from;
+                long blockEnd = Math.min(size, from + properties.getBatchSize());
+                blocks.add(executor.submit(() -> written.addAndGet(writeBlock(catalog, blockStart, blockEnd, attributeIds, ingredientIds))));
+            }
+            for (Future<?> block : blocks) {
+                block.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Catalog generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Catalog generation failed, the blocks written so far are kept", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            sessionFactory.getCache().evictAllRegions();
+        }
+        log.info("Generated {} recipes in {} ms", written.get(), System.currentTimeMillis() - start);
+        return written.get();
+    }
+
+    private long writeBlock(SyntheticCatalog catalog, long from, long to, Map<RecipeAttributeType, Long> attributeIds, long[] ingredientIds) {
+        Set<String> existing = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "select name from recipe where name in (:names)",
+                Collections.singletonMap("names", LongStream.range(from, to).mapToObj(SyntheticCatalog::recipeName).collect(Collectors.toList())),
+                String.class));
+        List<SyntheticRecipe> recipes = LongStream.range(from, to)
+                .filter(recipeIndex -> !existing.contains(SyntheticCatalog.recipeName(recipeIndex)))
+                .mapToObj(catalog::recipe)
+                .collect(Collectors.toList());
+        if (recipes.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> recipeRows = new ArrayList<>(recipes.size());
+        List<Object[]> attributeRows = new ArrayList<>();
+        List<Object[]> ingredientRows = new ArrayList<>();
+        Set<Long> recipeIds = withIds(nextId -> {
+            Set<Long> ids = new HashSet<>();
+            for (SyntheticRecipe recipe : recipes) {
+                long recipeId = nextId.getAsLong();
+                ids.add(recipeId);
+                recipeRows.add(new Object[]{recipeId, recipe.getName(), recipe.getServingNumber(), recipe.getInstruction()});
+                recipe.getAttributes().forEach(type -> attributeRows.add(new Object[]{recipeId, attributeIds.get(type)}));
+                int[] ranks = recipe.getIngredientRanks();
+                for (int i = 0; i < ranks.length; i++) {
+                    ingredientRows.add(new Object[]{nextId.getAsLong(), recipe.getAmounts()[i], ingredientIds[ranks[i]], recipeId});
+                }
+            }
+            return ids;
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("insert into recipe (id, version, name, serving_number, instruction) values (?, 0, ?, ?, ?)", recipeRows);
+            jdbcTemplate.batchUpdate("insert into rel_recipe__attribute (recipe_id, attribute_id) values (?, ?)", attributeRows);
+            jdbcTemplate.batchUpdate("insert into recipe_ingredient (id, version, amount, ingredient_id, recipe_id) values (?, 0, ?, ?, ?)", ingredientRows);
+        });
+        // before the initial load nothing is indexed yet, the load reads the committed block anyway
+        if (index.isReady()) {
+            indexLoader.reload(recipeIds, Collections.emptySet(), Collections.emptySet());
+        }
+        log.debug("Generated recipes {} to {}", from, to - 1);
+        return recipes.size();
+    }
+
+    private Map<RecipeAttributeType, Long> ensureAttributes(LongSupplier nextId) {
+        Map<RecipeAttributeType, Long> attributeIds = new EnumMap<>(RecipeAttributeType.class);
+        jdbcTemplate.query("select id, recipe_attribute_type from attribute",
+                row -> {
+                    attributeIds.put(RecipeAttributeType.valueOf(row.getString(2)), row.getLong(1));
+                });
+        List<Object[]> rows = new ArrayList<>();
+        for (RecipeAttributeType type : RecipeAttributeType.values()) {
+            if (!attributeIds.containsKey(type)) {
+                long id = nextId.getAsLong();
+                attributeIds.put(type, id);
+                rows.add(new Object[]{id, type.name()});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate("insert into attribute (id, version, recipe_attribute_type) values (?, 0, ?)", rows));
+        return attributeIds;
+    }
+
+    private long[] ensureIngredients(SyntheticCatalog catalog, LongSupplier nextId) {
+        Map<String, Long> existing = new HashMap<>();
+        jdbcTemplate.query("select id, name from ingredient", row -> {
+            existing.put(row.getString(2), row.getLong(1));
+        });
+        long[] ingredientIds = new long[catalog.getIngredientCount()];
+        List<Object[]> rows = new ArrayList<>();
+        for (int rank = 0; rank < ingredientIds.length; rank++) {
+            String name = SyntheticCatalog.ingredientName(rank);
+            Long id = existing.get(name);
+            if (id == null) {
+                id = nextId.getAsLong();
+                rows.add(new Object[]{id, name});
+            }
+            ingredientIds[rank] = id;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate("insert into ingredient (id, version, name) values (?, 0, ?)", rows));
+        return ingredientIds;
+    }
+
+    /**
+     * Run the given work with ids from the identifier generator of the entities, through a session of its own.
+     */
+    private <T> T withIds(Function<LongSupplier, T> work) {
+        IdentifierGenerator generator = sessionFactory.getIdentifierGenerator(Recipe.class.getName());
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return work.apply(() -> (Long) generator.generate((SharedSessionContractImplementor) session, null));
+        }
+    }
+}
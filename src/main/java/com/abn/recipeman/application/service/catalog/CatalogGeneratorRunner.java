@@ -0,0 +1,30 @@
+package com.abn.recipeman.application.service.catalog;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the synthetic catalog of {@code recipeman.catalog} when the {@code generate-catalog} profile is active, before
+ * the filter indexes are loaded.
+ */
+@Component
+@Profile("generate-catalog")
+public class CatalogGeneratorRunner implements ApplicationRunner {
+
+    private final CatalogGenerator catalogGenerator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public CatalogGeneratorRunner(CatalogGenerator catalogGenerator, ApplicationProperties applicationProperties) {
+        this.catalogGenerator = catalogGenerator;
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        catalogGenerator.generate(applicationProperties.getCatalog().getSize());
+    }
+}
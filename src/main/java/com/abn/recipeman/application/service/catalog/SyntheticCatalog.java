@@ -0,0 +1,218 @@
+package com.abn.recipeman.application.service.catalog;
+
+import com.abn.recipeman.application.service.RecipeAttributeType;
+
+import java.util.*;
+
+/**
+ * A synthetic recipe catalog with production-like distributions.
+ * <p>
+ * Ingredient popularity and instruction words follow a Zipf distribution, serving numbers are skewed towards 2 and
+ * 4, the number of ingredients is exponential and the instruction length log-normal. Recipe {@code i} only depends
+ * on the seed, the ingredient count and {@code i}, so a catalog is the same on every machine, whatever the order it
+ * is generated in, and a bigger catalog contains the smaller ones.
+ */
+public class SyntheticCatalog {
+
+    private static final String[] WORDS = {
+            "the", "and", "stir", "add", "until", "with", "heat", "minutes", "mix", "pan", "salt", "bowl", "oil",
+            "water", "then", "medium", "pepper", "bake", "oven", "simmer", "gently", "remove", "serve", "butter",
+            "flour", "sugar", "cover", "pour", "boil", "chop", "slice", "season", "sauce", "golden", "tender", "low",
+            "place", "bring", "warm", "whisk", "fold", "melt", "roast", "drain", "dough", "cool", "rest", "knead",
+            "layer", "egg", "crust", "cream", "preheat", "smooth", "spoon", "pinch", "dice", "fry", "beat", "lid",
+    };
+
+    private static final int[] SERVING_NUMBERS = {1, 2, 3, 4, 5, 6, 8, 10, 12};
+
+    private static final double[] SERVING_NUMBER_WEIGHTS = {5, 30, 8, 30, 3, 12, 7, 3, 2};
+
+    private static final Map<RecipeAttributeType, Double> ATTRIBUTE_SHARES = Map.of(
+            RecipeAttributeType.VEGETARIAN, 0.3,
+            RecipeAttributeType.HILAL, 0.15
+    );
+
+    private static final int MAX_INGREDIENTS_PER_RECIPE = 20;
+
+    private final long seed;
+
+    private final int ingredientCount;
+
+    private final double[] ingredientDistribution;
+
+    private final double[] wordDistribution;
+
+    private final double[] servingNumberDistribution;
+
+    public SyntheticCatalog(long seed, int ingredientCount) {
+        if (ingredientCount < MAX_INGREDIENTS_PER_RECIPE) {
+            throw new IllegalArgumentException("A synthetic catalog needs at least " + MAX_INGREDIENTS_PER_RECIPE + " ingredients");
+        }
+        this.seed = seed;
+        this.ingredientCount = ingredientCount;
+        this.ingredientDistribution = zipf(ingredientCount);
+        this.wordDistribution = zipf(WORDS.length);
+        this.servingNumberDistribution = cumulative(SERVING_NUMBER_WEIGHTS);
+    }
+
+    public int getIngredientCount() {
+        return ingredientCount;
+    }
+
+    /**
+     * Get the name of the recipe with the given index.
+     */
+    public static String recipeName(long index) {
+        return "recipe-" + index;
+    }
+
+    /**
+     * Get the name of the ingredient with the given popularity rank, {@code 0} being the most used one.
+     */
+    public static String ingredientName(int rank) {
+        return "ingredient-" + rank;
+    }
+
+    /**
+     * Generate the recipe with the given index.
+     */
+    public SyntheticRecipe recipe(long index) {
+        SplittableRandom random = new SplittableRandom(mix64(seed * 31 + index));
+
+        int servingNumber = SERVING_NUMBERS[sample(servingNumberDistribution, random)];
+
+        Set<RecipeAttributeType> attributes = EnumSet.noneOf(RecipeAttributeType.class);
+        for (RecipeAttributeType type : RecipeAttributeType.values()) {
+            if (random.nextDouble() < ATTRIBUTE_SHARES.getOrDefault(type, 0.1)) {
+                attributes.add(type);
+            }
+        }
+
+        int ingredientsInRecipe = Math.min(MAX_INGREDIENTS_PER_RECIPE, 3 + (int) (-Math.log(1 - random.nextDouble()) * 4));
+        Set<Integer> ranks = new LinkedHashSet<>();
+        while (ranks.size() < ingredientsInRecipe) {
+            ranks.add(sample(ingredientDistribution, random));
+        }
+        int[] ingredientRanks = ranks.stream().mapToInt(Integer::intValue).toArray();
+        int[] amounts = new int[ingredientRanks.length];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = 5 * (1 + random.nextInt(200));
+        }
+
+        // log-normal around 60 words, from a few words to a few pages
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        int words = Math.max(5, Math.min(2000, (int) Math.exp(Math.log(60) + 0.7 * gaussian)));
+        StringBuilder instruction = new StringBuilder(words * 7);
+        boolean sentenceStart = true;
+        for (int word = 0; word < words; word++) {
+            String text = WORDS[sample(wordDistribution, random)];
+            if (sentenceStart) {
+                instruction.append(Character.toUpperCase(text.charAt(0))).append(text, 1, text.length());
+            } else {
+                instruction.append(' ').append(text);
+            }
+            sentenceStart = random.nextInt(12) == 0 || word == words - 1;
+            if (sentenceStart) {
+                instruction.append(word == words - 1 ? "." : ". ");
+            }
+        }
+
+        return new SyntheticRecipe(index, recipeName(index), servingNumber, instruction.toString(), attributes, ingredientRanks, amounts);
+    }
+
+    private static double[] zipf(int size) {
+        double[] weights = new double[size];
+        for (int rank = 0; rank < size; rank++) {
+            weights[rank] = 1.0 / (rank + 1);
+        }
+        return cumulative(weights);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] distribution = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            distribution[i] = total;
+        }
+        for (int i = 0; i < distribution.length; i++) {
+            distribution[i] /= total;
+        }
+        return distribution;
+    }
+
+    private static int sample(double[] distribution, SplittableRandom random) {
+        int position = Arrays.binarySearch(distribution, random.nextDouble());
+        return Math.min(distribution.length - 1, position >= 0 ? position : -position - 1);
+    }
+
+    /**
+     * Spread consecutive indexes over unrelated random seeds.
+     */
+    private static long mix64(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * A recipe of a {@link SyntheticCatalog}, its ingredients are given by popularity rank.
+     */
+    public static final class SyntheticRecipe {
+
+        private final long index;
+
+        private final String name;
+
+        private final int servingNumber;
+
+        private final String instruction;
+
+        private final Set<RecipeAttributeType> attributes;
+
+        private final int[] ingredientRanks;
+
+        private final int[] amounts;
+
+        private SyntheticRecipe(long index, String name, int servingNumber, String instruction, Set<RecipeAttributeType> attributes,
+                                int[] ingredientRanks, int[] amounts) {
+            this.index = index;
+            this.name = name;
+            this.servingNumber = servingNumber;
+            this.instruction = instruction;
+            this.attributes = attributes;
+            this.ingredientRanks = ingredientRanks;
+            this.amounts = amounts;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getServingNumber() {
+            return servingNumber;
+        }
+
+        public String getInstruction() {
+            return instruction;
+        }
+
+        public Set<RecipeAttributeType> getAttributes() {
+            return attributes;
+        }
+
+        public int[] getIngredientRanks() {
+            return ingredientRanks;
+        }
+
+        /**
+         * @return the amount of every ingredient, in the order of {@link #getIngredientRanks()}.
+         */
+        public int[] getAmounts() {
+            return amounts;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.abn.recipeman.application.service.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller loads, in a read-only transaction of its own, and the
+ * callers arriving before it is done wait for its result instead of loading again. Nothing is kept once the load is
+ * done, so a later call always sees the latest committed data.
+ * <p>
+ * Callers already in a transaction load on their own, as they may see writes of their transaction that others must
+ * not. Followers do not hold a connection while they wait, so the callers must not have started a transaction either:
+ * methods using it are {@link org.springframework.transaction.annotation.Propagation#SUPPORTS}.
+ * <p>
+ * Loads are counted under {@code recipeman.single-flight.loads}, tagged with the name of the flight and the
+ * {@code role} of the caller: {@code leader} for the ones that loaded, {@code follower} for the coalesced ones.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the loaded values, shared by all the callers of a load, so not to be modified.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Counter leaders;
+
+    private final Counter followers;
+
+    public SingleFlight(String name, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.leaders = meterRegistry.counter("recipeman.single-flight.loads", "name", name, "role", "leader");
+        this.followers = meterRegistry.counter("recipeman.single-flight.loads", "name", name, "role", "follower");
+    }
+
+    /**
+     * Load the value of the given key, or wait for the load already in flight.
+     *
+     * @param key    the key to load.
+     * @param loader the load, run in a read-only transaction unless the caller is in a transaction already.
+     * @return the loaded value.
+     */
+    public V load(K key, Supplier<V> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leading = inFlight.putIfAbsent(key, flight);
+        if (leading != null) {
+            followers.increment();
+            try {
+                return leading.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        leaders.increment();
+        try {
+            V value = readOnlyTransaction.execute(status -> loader.get());
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+}
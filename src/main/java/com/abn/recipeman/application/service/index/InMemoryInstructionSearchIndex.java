@@ -0,0 +1,150 @@
+package com.abn.recipeman.application.service.index;
+
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident inverted index of the recipe instructions.
+ * <p>
+ * A bitmap of recipe ids is kept per word, and the word sequence of every instruction is kept to verify phrases. A
+ * search intersects the postings of its words, so its cost follows the size of the smallest posting rather than the
+ * size of the catalog. The index is loaded by {@link RecipeFilterIndexLoader} and kept in sync by
+ * {@link RecipeIndexEventListener}, together with the {@link RecipeFilterIndex}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "recipeman.inquiry", name = "instruction-search", havingValue = "memory", matchIfMissing = true)
+public class InMemoryInstructionSearchIndex implements InstructionSearchIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, Roaring64NavigableMap> recipesByToken = new TreeMap<>();
+
+    private final Map<Long, String[]> tokensByRecipe = new HashMap<>();
+
+    private final Roaring64NavigableMap allRecipes = new Roaring64NavigableMap();
+
+    private volatile boolean ready;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public Roaring64NavigableMap search(String text) {
+        List<String> tokens = InstructionTokenizer.tokenize(text);
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            if (tokens.isEmpty()) {
+                result.or(allRecipes);
+                return result;
+            }
+            String prefix = tokens.get(tokens.size() - 1);
+            recipesByToken.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values().forEach(result::or);
+            for (String token : tokens.subList(0, tokens.size() - 1)) {
+                Roaring64NavigableMap recipes = recipesByToken.get(token);
+                if (recipes == null) {
+                    return new Roaring64NavigableMap();
+                }
+                result.and(recipes);
+            }
+            if (tokens.size() == 1) {
+                return result;
+            }
+            Roaring64NavigableMap phraseMatches = new Roaring64NavigableMap();
+            LongIterator candidates = result.getLongIterator();
+            while (candidates.hasNext()) {
+                long recipeId = candidates.next();
+                if (containsPhrase(tokensByRecipe.get(recipeId), tokens)) {
+                    phraseMatches.addLong(recipeId);
+                }
+            }
+            return phraseMatches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void indexInstruction(long recipeId, String instruction) {
+        List<String> tokens = InstructionTokenizer.tokenize(instruction);
+        lock.writeLock().lock();
+        try {
+            removeRecipeTokens(recipeId);
+            if (instruction == null) {
+                return;
+            }
+            String[] sequence = new String[tokens.size()];
+            for (int i = 0; i < sequence.length; i++) {
+                String token = tokens.get(i);
+                Roaring64NavigableMap recipes = recipesByToken.get(token);
+                if (recipes == null) {
+                    recipes = new Roaring64NavigableMap();
+                    recipesByToken.put(token, recipes);
+                } else {
+                    // share the key instance between all the recipes using the word
+                    token = recipesByToken.ceilingKey(token);
+                }
+                recipes.addLong(recipeId);
+                sequence[i] = token;
+            }
+            tokensByRecipe.put(recipeId, sequence);
+            allRecipes.addLong(recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeRecipe(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            removeRecipeTokens(recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeRecipeTokens(long recipeId) {
+        String[] sequence = tokensByRecipe.remove(recipeId);
+        allRecipes.removeLong(recipeId);
+        if (sequence == null) {
+            return;
+        }
+        for (String token : sequence) {
+            Roaring64NavigableMap recipes = recipesByToken.get(token);
+            if (recipes != null) {
+                recipes.removeLong(recipeId);
+                if (recipes.isEmpty()) {
+                    recipesByToken.remove(token);
+                }
+            }
+        }
+    }
+
+    private static boolean containsPhrase(String[] sequence, List<String> tokens) {
+        if (sequence == null) {
+            return false;
+        }
+        int last = tokens.size() - 1;
+        for (int start = 0; start + last < sequence.length; start++) {
+            int i = 0;
+            while (i < last && sequence[start + i].equals(tokens.get(i))) {
+                i++;
+            }
+            if (i == last && sequence[start + last].startsWith(tokens.get(last))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
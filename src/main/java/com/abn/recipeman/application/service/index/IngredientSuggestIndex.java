@@ -0,0 +1,168 @@
+package com.abn.recipeman.application.service.index;
+
+import com.abn.recipeman.application.model.dto.IngredientSuggestionDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Resident index suggesting ingredient names for a typed prefix, the most used ones first, without touching the
+ * database.
+ * <p>
+ * The suggestions are served from an immutable snapshot of the ingredients of the {@link RecipeFilterIndex}: their
+ * lower-cased names sorted for a binary search of the prefix range, and their positions ranked by the number of
+ * recipes using them. A narrow range is ranked directly, a wide one is answered by walking the ranking until enough
+ * of it falls in the range, so either way a suggestion costs little more than the suggestions returned. A new snapshot
+ * is built and swapped in by {@link #refresh()} whenever ingredients or their recipes have been written.
+ */
+@Component
+public class IngredientSuggestIndex {
+
+    /**
+     * The most suggestions returned for one prefix.
+     */
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private final Logger log = LoggerFactory.getLogger(IngredientSuggestIndex.class);
+
+    private final RecipeFilterIndex index;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+
+    private long snapshotGeneration = -1;
+
+    public IngredientSuggestIndex(RecipeFilterIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Get the ingredients whose name starts with the given prefix, ignoring case, the ones used by the most recipes
+     * first. Nothing is suggested until the {@link RecipeFilterIndex} is loaded.
+     *
+     * @param prefix the typed prefix, an empty one suggests the most used ingredients.
+     * @param limit  the most suggestions to return, capped at {@link #MAX_SUGGESTIONS}.
+     * @return the suggestions.
+     */
+    public List<IngredientSuggestionDTO> suggest(String prefix, int limit) {
+        return snapshot.suggest(prefix.toLowerCase(Locale.ROOT), Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    /**
+     * Build a new snapshot from the {@link RecipeFilterIndex} and swap it in, unless nothing has been written since
+     * the current one was built.
+     */
+    public synchronized void refresh() {
+        if (!index.isReady() || index.generation() == snapshotGeneration) {
+            return;
+        }
+        long start = System.nanoTime();
+        // read first, whatever is written while building advances the generation again for the next refresh
+        long generation = index.generation();
+        List<IngredientSuggestionDTO> ingredients = new ArrayList<>();
+        index.forEachIngredient((ingredientId, ingredientName, recipeCount) -> {
+            if (ingredientName != null) {
+                ingredients.add(new IngredientSuggestionDTO(ingredientId, ingredientName, recipeCount));
+            }
+        });
+        snapshot = new Snapshot(ingredients);
+        snapshotGeneration = generation;
+        log.debug("Ingredient suggest index of {} ingredients built in {} µs", ingredients.size(), (System.nanoTime() - start) / 1000);
+    }
+
+    private static final class Snapshot {
+
+        private static final Comparator<IngredientSuggestionDTO> BY_POPULARITY = Comparator
+                .comparingInt(IngredientSuggestionDTO::getRecipeCount).reversed()
+                .thenComparing(IngredientSuggestionDTO::getName)
+                .thenComparing(IngredientSuggestionDTO::getId);
+
+        private final String[] keys;
+
+        private final IngredientSuggestionDTO[] ingredients;
+
+        /**
+         * The positions in {@link #keys} from the most to the least used ingredient.
+         */
+        private final int[] ranking;
+
+        /**
+         * The rank of every position in {@link #keys}.
+         */
+        private final int[] ranks;
+
+        private Snapshot(List<IngredientSuggestionDTO> unsorted) {
+            int size = unsorted.size();
+            String[] lowerCased = unsorted.stream().map(ingredient -> ingredient.getName().toLowerCase(Locale.ROOT)).toArray(String[]::new);
+            Integer[] byKey = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byKey[i] = i;
+            }
+            Arrays.sort(byKey, Comparator.comparing((Integer i) -> lowerCased[i]).thenComparing(i -> unsorted.get(i), BY_POPULARITY));
+            keys = new String[size];
+            ingredients = new IngredientSuggestionDTO[size];
+            for (int position = 0; position < size; position++) {
+                keys[position] = lowerCased[byKey[position]];
+                ingredients[position] = unsorted.get(byKey[position]);
+            }
+            Integer[] byPopularity = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byPopularity[i] = i;
+            }
+            Arrays.sort(byPopularity, Comparator.comparing((Integer position) -> ingredients[position], BY_POPULARITY));
+            ranking = new int[size];
+            ranks = new int[size];
+            for (int rank = 0; rank < size; rank++) {
+                ranking[rank] = byPopularity[rank];
+                ranks[byPopularity[rank]] = rank;
+            }
+        }
+
+        private List<IngredientSuggestionDTO> suggest(String key, int limit) {
+            int from = firstPosition(key, false);
+            int to = firstPosition(key, true);
+            int matches = to - from;
+            if (matches == 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+            List<IngredientSuggestionDTO> result = new ArrayList<>(Math.min(limit, matches));
+            // ranking the range costs about matches * log(matches), walking the ranking about limit * size / matches
+            if ((long) matches * matches <= (long) limit * keys.length) {
+                int[] rangeRanks = Arrays.copyOfRange(ranks, from, to);
+                Arrays.sort(rangeRanks);
+                for (int i = 0; i < Math.min(limit, matches); i++) {
+                    result.add(ingredients[ranking[rangeRanks[i]]]);
+                }
+            } else {
+                for (int rank = 0; rank < ranking.length && result.size() < limit; rank++) {
+                    int position = ranking[rank];
+                    if (position >= from && position < to) {
+                        result.add(ingredients[position]);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Binary search the first position whose key is not below the prefix, or with {@code pastPrefix} the first
+         * one that does not start with it either.
+         */
+        private int firstPosition(String prefix, boolean pastPrefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                String key = keys[middle];
+                boolean before = key.compareTo(prefix) < 0 || (pastPrefix && key.startsWith(prefix));
+                if (before) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.abn.recipeman.application.service.index;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Full-text search over the recipe instructions, answering the instruction part of a recipe inquiry.
+ * <p>
+ * The searched text is split into words the same way the instructions are. A recipe matches when its instruction
+ * contains those words next to each other and in order, the last word being matched as a prefix, ignoring case and
+ * punctuation. A text without any word matches every recipe.
+ * <p>
+ * The backend is chosen with {@code recipeman.inquiry.instruction-search}.
+ */
+public interface InstructionSearchIndex {
+
+    /**
+     * @return {@code true} when the index can be queried.
+     */
+    boolean isReady();
+
+    /**
+     * Get the recipes whose instruction matches the given text.
+     *
+     * @param text the searched text.
+     * @return a fresh bitmap of recipe ids owned by the caller.
+     */
+    Roaring64NavigableMap search(String text);
+}
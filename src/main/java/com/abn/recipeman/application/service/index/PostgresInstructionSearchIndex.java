@@ -0,0 +1,63 @@
+package com.abn.recipeman.application.service.index;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Instruction search delegated to PostgreSQL full-text search, backed by a GIN index on the instruction
+ * {@code tsvector}. The {@code simple} configuration is used so words are only lower-cased, like
+ * {@link InMemoryInstructionSearchIndex} does.
+ */
+@Component
+@ConditionalOnProperty(prefix = "recipeman.inquiry", name = "instruction-search", havingValue = "postgres")
+public class PostgresInstructionSearchIndex implements InstructionSearchIndex {
+
+    private final Logger log = LoggerFactory.getLogger(PostgresInstructionSearchIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresInstructionSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndex() {
+        log.debug("Creating the instruction full-text index if missing");
+        jdbcTemplate.execute("create index if not exists idx_recipe_instruction_fts on recipe using gin (to_tsvector('simple', instruction))");
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public Roaring64NavigableMap search(String text) {
+        List<String> tokens = InstructionTokenizer.tokenize(text);
+        Roaring64NavigableMap result = new Roaring64NavigableMap();
+        if (tokens.isEmpty()) {
+            jdbcTemplate.query("select id from recipe", row -> {
+                result.addLong(row.getLong(1));
+            });
+            return result;
+        }
+        // words only hold letters and digits, so they need no quoting in the tsquery syntax
+        String query = String.join(" <-> ", tokens) + ":*";
+        jdbcTemplate.query(
+                "select id from recipe where to_tsvector('simple', instruction) @@ to_tsquery('simple', ?)",
+                row -> {
+                    result.addLong(row.getLong(1));
+                },
+                query
+        );
+        return result;
+    }
+}
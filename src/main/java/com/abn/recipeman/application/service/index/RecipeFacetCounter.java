@@ -0,0 +1,90 @@
+package com.abn.recipeman.application.service.index;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.model.dto.RecipeFacetsDTO;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Counts a set of recipes per attribute, per serving number and for the ingredients used by most of them, from the
+ * resident indexes.
+ * <p>
+ * The attribute and serving number counts intersect the set with the few postings of the {@link RecipeFilterIndex}.
+ * There are too many ingredient postings to intersect them all, so the ingredient sets held by the
+ * {@link RecipeSimilarityIndex} are read for a sample of {@code facet-sample-size} recipes spread over the set, the
+ * whole set when it is smaller, and only the ingredients most used by the sample are intersected. Every count returned
+ * is exact; with a sample, an ingredient used about as often as the last one returned may be left out in its favour.
+ */
+@Component
+public class RecipeFacetCounter {
+
+    /**
+     * Ingredients counted exactly per ingredient returned, when choosing them from a sample.
+     */
+    private static final int SAMPLED_CANDIDATES_PER_INGREDIENT = 3;
+
+    private final RecipeFilterIndex recipeFilterIndex;
+
+    private final RecipeSimilarityIndex recipeSimilarityIndex;
+
+    private final ApplicationProperties applicationProperties;
+
+    public RecipeFacetCounter(RecipeFilterIndex recipeFilterIndex, RecipeSimilarityIndex recipeSimilarityIndex, ApplicationProperties applicationProperties) {
+        this.recipeFilterIndex = recipeFilterIndex;
+        this.recipeSimilarityIndex = recipeSimilarityIndex;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Count the given recipes.
+     *
+     * @param recipeIds      the recipes to count.
+     * @param topIngredients the number of ingredients to count.
+     * @return the counts.
+     */
+    public RecipeFacetsDTO count(Roaring64NavigableMap recipeIds, int topIngredients) {
+        long total = recipeIds.getLongCardinality();
+        Map<String, Long> ingredients = new LinkedHashMap<>();
+        if (topIngredients > 0 && total > 0) {
+            int sampleSize = applicationProperties.getInquiry().getFacetSampleSize();
+            Map<Long, Long> counts;
+            if (total <= sampleSize) {
+                counts = recipeSimilarityIndex.countIngredients(recipeIds);
+            } else {
+                Map<Long, Long> sampleCounts = recipeSimilarityIndex.countIngredients(sample(recipeIds, total, sampleSize));
+                counts = recipeFilterIndex.countIngredients(recipeIds, mostUsed(sampleCounts, topIngredients * SAMPLED_CANDIDATES_PER_INGREDIENT));
+            }
+            for (Long ingredientId : mostUsed(counts, topIngredients)) {
+                String name = recipeFilterIndex.ingredientName(ingredientId);
+                if (name != null) {
+                    ingredients.put(name, counts.get(ingredientId));
+                }
+            }
+        }
+        return new RecipeFacetsDTO(
+                total,
+                recipeFilterIndex.countAttributes(recipeIds),
+                recipeFilterIndex.countServingNumbers(recipeIds),
+                ingredients
+        );
+    }
+
+    private static Roaring64NavigableMap sample(Roaring64NavigableMap recipeIds, long total, int sampleSize) {
+        Roaring64NavigableMap sample = new Roaring64NavigableMap();
+        for (int i = 0; i < sampleSize; i++) {
+            sample.addLong(recipeIds.select(i * total / sampleSize));
+        }
+        return sample;
+    }
+
+    /**
+     * Get the ids of the most used ingredients, the most used first and the lowest id first among equals.
+     */
+    private static List<Long> mostUsed(Map<Long, Long> counts, int limit) {
+        List<Long> ingredientIds = new ArrayList<>(counts.keySet());
+        ingredientIds.sort(Comparator.comparing((Long ingredientId) -> counts.get(ingredientId)).reversed().thenComparing(Comparator.naturalOrder()));
+        return ingredientIds.subList(0, Math.min(limit, ingredientIds.size()));
+    }
+}
@@ -0,0 +1,361 @@
+package com.abn.recipeman.application.service.index;
+
+import com.abn.recipeman.application.service.RecipeAttributeType;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident index of recipe ids answering the filter part of a recipe inquiry without touching the database.
+ * <p>
+ * One compressed bitmap of recipe ids is kept per {@link RecipeAttributeType}, per ingredient and per serving number,
+ * along with the name of every ingredient.
+ * The index is populated by {@link RecipeFilterIndexLoader} and kept in sync with the database by
+ * {@link RecipeIndexEventListener}. Every query returns a fresh bitmap owned by the caller.
+ */
+@Component
+public class RecipeFilterIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Roaring64NavigableMap allRecipes = new Roaring64NavigableMap();
+
+    private final Map<RecipeAttributeType, Roaring64NavigableMap> recipesByAttribute = new EnumMap<>(RecipeAttributeType.class);
+
+    private final Map<Integer, Roaring64NavigableMap> recipesByServingNumber = new HashMap<>();
+
+    private final Map<Long, Roaring64NavigableMap> recipesByIngredient = new HashMap<>();
+
+    private final Map<Long, String> ingredientNames = new HashMap<>();
+
+    private final Map<String, Set<Long>> ingredientIdsByName = new HashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean ready;
+
+    /**
+     * @return {@code true} once the initial load has completed and the index can be queried.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * Get the generation of the recipe data. It is advanced whenever the committed writes of a recipe, an ingredient
+     * or an attribute have been applied, so anything derived from the recipe data under a generation is stale once the
+     * generation has changed.
+     *
+     * @return the current generation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    void advanceGeneration() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Get every indexed recipe.
+     */
+    public Roaring64NavigableMap allRecipes() {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            result.or(allRecipes);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the recipes having the given attribute.
+     */
+    public Roaring64NavigableMap recipesWithAttribute(RecipeAttributeType attribute) {
+        return recipesWithAnyAttribute(Collections.singleton(attribute));
+    }
+
+    /**
+     * Get the recipes using an ingredient with the given name.
+     */
+    public Roaring64NavigableMap recipesWithIngredient(String ingredientName) {
+        return recipesWithAnyIngredient(Collections.singleton(ingredientName));
+    }
+
+    /**
+     * Get the recipes having at least one of the given attributes.
+     */
+    public Roaring64NavigableMap recipesWithAnyAttribute(Collection<RecipeAttributeType> attributes) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            attributes.stream().map(recipesByAttribute::get).filter(Objects::nonNull).forEach(result::or);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the recipes using at least one of the ingredients with the given names.
+     */
+    public Roaring64NavigableMap recipesWithAnyIngredient(Collection<String> ingredientNames) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            ingredientNames.stream()
+                    .map(ingredientIdsByName::get)
+                    .filter(Objects::nonNull)
+                    .flatMap(Set::stream)
+                    .map(recipesByIngredient::get)
+                    .filter(Objects::nonNull)
+                    .forEach(result::or);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the given recipes per attribute.
+     *
+     * @return the counts by attribute, without the attributes none of the recipes has.
+     */
+    public Map<RecipeAttributeType, Long> countAttributes(Roaring64NavigableMap recipeIds) {
+        lock.readLock().lock();
+        try {
+            Map<RecipeAttributeType, Long> counts = new EnumMap<>(RecipeAttributeType.class);
+            recipesByAttribute.forEach((attribute, recipes) -> putCount(counts, attribute, andCardinality(recipeIds, recipes)));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the given recipes per serving number.
+     *
+     * @return the counts in serving number order, without the serving numbers of none of the recipes.
+     */
+    public Map<Integer, Long> countServingNumbers(Roaring64NavigableMap recipeIds) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Long> counts = new TreeMap<>();
+            recipesByServingNumber.forEach((servingNumber, recipes) -> putCount(counts, servingNumber, andCardinality(recipeIds, recipes)));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the given recipes using each of the given ingredients.
+     *
+     * @return the counts by ingredient id, without the ingredients none of the recipes uses.
+     */
+    public Map<Long, Long> countIngredients(Roaring64NavigableMap recipeIds, Collection<Long> ingredientIds) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Long> counts = new HashMap<>();
+            for (Long ingredientId : ingredientIds) {
+                Roaring64NavigableMap recipes = recipesByIngredient.get(ingredientId);
+                if (recipes != null) {
+                    putCount(counts, ingredientId, andCardinality(recipeIds, recipes));
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the name of the ingredient, {@code null} if it is not indexed.
+     */
+    public String ingredientName(long ingredientId) {
+        lock.readLock().lock();
+        try {
+            return ingredientNames.get(ingredientId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pass every indexed ingredient, used by recipes or not, to the given visitor along with the number of recipes
+     * using it.
+     */
+    void forEachIngredient(IngredientVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            ingredientNames.forEach((ingredientId, ingredientName) -> {
+                Roaring64NavigableMap recipes = recipesByIngredient.get(ingredientId);
+                visitor.visit(ingredientId, ingredientName, recipes == null ? 0 : recipes.getIntCardinality());
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the recipes with exactly the given serving number.
+     */
+    public Roaring64NavigableMap recipesWithServingNumber(int servingNumber) {
+        lock.readLock().lock();
+        try {
+            Roaring64NavigableMap result = new Roaring64NavigableMap();
+            Optional.ofNullable(recipesByServingNumber.get(servingNumber)).ifPresent(result::or);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void indexServingNumber(long recipeId, Integer servingNumber) {
+        lock.writeLock().lock();
+        try {
+            removeFromAll(recipesByServingNumber, recipeId);
+            allRecipes.addLong(recipeId);
+            if (servingNumber != null) {
+                recipesByServingNumber.computeIfAbsent(servingNumber, key -> new Roaring64NavigableMap()).addLong(recipeId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void indexAttributes(long recipeId, Collection<RecipeAttributeType> attributes) {
+        lock.writeLock().lock();
+        try {
+            removeFromAll(recipesByAttribute, recipeId);
+            attributes.forEach(attribute -> recipesByAttribute.computeIfAbsent(attribute, key -> new Roaring64NavigableMap()).addLong(recipeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void addAttribute(long recipeId, RecipeAttributeType attribute) {
+        lock.writeLock().lock();
+        try {
+            recipesByAttribute.computeIfAbsent(attribute, key -> new Roaring64NavigableMap()).addLong(recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void linkIngredient(long recipeId, long ingredientId, String ingredientName) {
+        lock.writeLock().lock();
+        try {
+            if (ingredientName != null) {
+                putIngredientName(ingredientId, ingredientName);
+            }
+            recipesByIngredient.computeIfAbsent(ingredientId, key -> new Roaring64NavigableMap()).addLong(recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void unlinkIngredient(long recipeId, long ingredientId) {
+        lock.writeLock().lock();
+        try {
+            Roaring64NavigableMap recipes = recipesByIngredient.get(ingredientId);
+            if (recipes != null) {
+                recipes.removeLong(recipeId);
+                if (recipes.isEmpty()) {
+                    recipesByIngredient.remove(ingredientId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void indexIngredient(long ingredientId, String ingredientName) {
+        lock.writeLock().lock();
+        try {
+            putIngredientName(ingredientId, ingredientName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeIngredient(long ingredientId) {
+        lock.writeLock().lock();
+        try {
+            recipesByIngredient.remove(ingredientId);
+            removeIngredientName(ingredientId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeRecipe(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            allRecipes.removeLong(recipeId);
+            removeFromAll(recipesByAttribute, recipeId);
+            removeFromAll(recipesByServingNumber, recipeId);
+            removeFromAll(recipesByIngredient, recipeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putIngredientName(long ingredientId, String ingredientName) {
+        removeIngredientName(ingredientId);
+        ingredientNames.put(ingredientId, ingredientName);
+        ingredientIdsByName.computeIfAbsent(ingredientName, key -> new HashSet<>(1)).add(ingredientId);
+    }
+
+    private void removeIngredientName(long ingredientId) {
+        String previousName = ingredientNames.remove(ingredientId);
+        if (previousName != null) {
+            Set<Long> ids = ingredientIdsByName.get(previousName);
+            ids.remove(ingredientId);
+            if (ids.isEmpty()) {
+                ingredientIdsByName.remove(previousName);
+            }
+        }
+    }
+
+    private static <K> void putCount(Map<K, Long> counts, K key, long count) {
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+
+    private static long andCardinality(Roaring64NavigableMap left, Roaring64NavigableMap right) {
+        boolean leftSmaller = left.getLongCardinality() <= right.getLongCardinality();
+        Roaring64NavigableMap intersection = new Roaring64NavigableMap();
+        intersection.or(leftSmaller ? left : right);
+        intersection.and(leftSmaller ? right : left);
+        return intersection.getLongCardinality();
+    }
+
+    private static <K> void removeFromAll(Map<K, Roaring64NavigableMap> postings, long recipeId) {
+        Iterator<Roaring64NavigableMap> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Roaring64NavigableMap recipes = iterator.next();
+            recipes.removeLong(recipeId);
+            if (recipes.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface IngredientVisitor {
+
+        void visit(long ingredientId, String ingredientName, int recipeCount);
+    }
+}
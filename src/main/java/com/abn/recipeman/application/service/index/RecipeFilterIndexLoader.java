@@ -0,0 +1,194 @@
+package com.abn.recipeman.application.service.index;
+
+import com.abn.recipeman.persistence.repository.IngredientRepository;
+import com.abn.recipeman.persistence.repository.RecipeIngredientRepository;
+import com.abn.recipeman.persistence.repository.RecipeRepository;
+import com.abn.recipeman.persistence.repository.projection.IngredientName;
+import com.abn.recipeman.persistence.repository.projection.RecipeAttributeLink;
+import com.abn.recipeman.persistence.repository.projection.RecipeIngredientLink;
+import com.abn.recipeman.persistence.repository.projection.RecipeInstruction;
+import com.abn.recipeman.persistence.repository.projection.RecipeServingNumber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads the {@link RecipeFilterIndex} and the {@link RecipeSimilarityIndex}, and the
+ * {@link InMemoryInstructionSearchIndex} when it is the configured instruction search, from the database once the
+ * application is ready, and reloads single recipes, refreshing the {@link IngredientSuggestIndex} along, whenever the
+ * changes collected by {@link RecipeIndexEventListener} cannot be applied as they are (references not resolved at
+ * flush, transactions of unknown outcome, changes committed while the index was still loading).
+ */
+@Component
+public class RecipeFilterIndexLoader {
+
+    private static final int RELOAD_CHUNK_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(RecipeFilterIndexLoader.class);
+
+    private final RecipeFilterIndex index;
+
+    private final RecipeRepository recipeRepository;
+
+    private final RecipeIngredientRepository recipeIngredientRepository;
+
+    private final IngredientRepository ingredientRepository;
+
+    private final InMemoryInstructionSearchIndex instructionIndex;
+
+    private final IngredientSuggestIndex suggestIndex;
+
+    private final RecipeSimilarityIndex similarityIndex;
+
+    private final Set<Long> pendingRecipeIds = new HashSet<>();
+
+    private final Set<Long> pendingIngredientIds = new HashSet<>();
+
+    public RecipeFilterIndexLoader(RecipeFilterIndex index,
+                                   RecipeRepository recipeRepository,
+                                   RecipeIngredientRepository recipeIngredientRepository,
+                                   IngredientRepository ingredientRepository,
+                                   ObjectProvider<InMemoryInstructionSearchIndex> instructionIndex,
+                                   IngredientSuggestIndex suggestIndex,
+                                   RecipeSimilarityIndex similarityIndex) {
+        this.index = index;
+        this.recipeRepository = recipeRepository;
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.instructionIndex = instructionIndex.getIfAvailable();
+        this.suggestIndex = suggestIndex;
+        this.similarityIndex = similarityIndex;
+    }
+
+    /**
+     * Load the whole index. Changes committed meanwhile are collected as pending and replayed before the index is
+     * marked as ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try (Stream<RecipeServingNumber> servingNumbers = recipeRepository.streamAllServingNumbers()) {
+            servingNumbers.forEach(row -> index.indexServingNumber(row.getRecipeId(), row.getServingNumber()));
+        }
+        try (Stream<RecipeAttributeLink> attributeLinks = recipeRepository.streamAllAttributeLinks()) {
+            attributeLinks.forEach(row -> index.addAttribute(row.getRecipeId(), row.getAttributeType()));
+        }
+        try (Stream<IngredientName> ingredientNames = ingredientRepository.streamAllNames()) {
+            ingredientNames.forEach(row -> index.indexIngredient(row.getIngredientId(), row.getIngredientName()));
+        }
+        try (Stream<RecipeIngredientLink> ingredientLinks = recipeIngredientRepository.streamAllIngredientLinks()) {
+            ingredientLinks.forEach(row -> {
+                index.linkIngredient(row.getRecipeId(), row.getIngredientId(), row.getIngredientName());
+                similarityIndex.linkIngredient(row.getRecipeId(), row.getIngredientId());
+            });
+        }
+        if (instructionIndex != null) {
+            try (Stream<RecipeInstruction> instructions = recipeRepository.streamAllInstructions()) {
+                instructions.forEach(row -> instructionIndex.indexInstruction(row.getRecipeId(), row.getInstruction()));
+            }
+        }
+        replayPending();
+        index.markReady();
+        similarityIndex.markReady();
+        if (instructionIndex != null) {
+            instructionIndex.markReady();
+        }
+        replayPending();
+        suggestIndex.refresh();
+        log.info("Recipe filter index loaded in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-read the given recipes and ingredients from the database and replace whatever the index holds for them,
+     * then advance the {@link RecipeFilterIndex#generation() generation} and refresh the {@link IngredientSuggestIndex}.
+     *
+     * @param recipeIds     the ids of the recipes to reload.
+     * @param ingredientIds the ids of the ingredients to reload.
+     * @param attributeIds  the ids of the attributes whose recipes are to be reloaded.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public void reload(Set<Long> recipeIds, Set<Long> ingredientIds, Set<Long> attributeIds) {
+        Set<Long> allRecipeIds = recipeIds;
+        if (!attributeIds.isEmpty()) {
+            allRecipeIds = new HashSet<>(recipeIds);
+            for (List<Long> chunk : chunks(attributeIds)) {
+                allRecipeIds.addAll(recipeRepository.findIdsByAttributeIdIn(chunk));
+            }
+        }
+        synchronized (this) {
+            if (!index.isReady()) {
+                pendingRecipeIds.addAll(allRecipeIds);
+                pendingIngredientIds.addAll(ingredientIds);
+                return;
+            }
+        }
+        doReload(allRecipeIds, ingredientIds);
+        index.advanceGeneration();
+        suggestIndex.refresh();
+    }
+
+    private void replayPending() {
+        Set<Long> recipeIds;
+        Set<Long> ingredientIds;
+        synchronized (this) {
+            recipeIds = new HashSet<>(pendingRecipeIds);
+            ingredientIds = new HashSet<>(pendingIngredientIds);
+            pendingRecipeIds.clear();
+            pendingIngredientIds.clear();
+        }
+        doReload(recipeIds, ingredientIds);
+    }
+
+    private void doReload(Set<Long> recipeIds, Set<Long> ingredientIds) {
+        if (recipeIds.isEmpty() && ingredientIds.isEmpty()) {
+            return;
+        }
+        log.debug("Reloading recipe filter index for recipes {} and ingredients {}", recipeIds, ingredientIds);
+        for (List<Long> chunk : chunks(ingredientIds)) {
+            Map<Long, String> names = ingredientRepository.findNamesByIdIn(chunk).stream()
+                    .collect(Collectors.toMap(IngredientName::getIngredientId, IngredientName::getIngredientName));
+            chunk.forEach(ingredientId -> {
+                String name = names.get(ingredientId);
+                if (name == null) {
+                    index.removeIngredient(ingredientId);
+                } else {
+                    index.indexIngredient(ingredientId, name);
+                }
+            });
+        }
+        for (List<Long> chunk : chunks(recipeIds)) {
+            chunk.forEach(index::removeRecipe);
+            chunk.forEach(similarityIndex::removeRecipe);
+            recipeRepository.findServingNumbersByIdIn(chunk).forEach(row -> index.indexServingNumber(row.getRecipeId(), row.getServingNumber()));
+            recipeRepository.findAttributeLinksByRecipeIdIn(chunk).forEach(row -> index.addAttribute(row.getRecipeId(), row.getAttributeType()));
+            recipeIngredientRepository.findIngredientLinksByRecipeIdIn(chunk).forEach(row -> {
+                index.linkIngredient(row.getRecipeId(), row.getIngredientId(), row.getIngredientName());
+                similarityIndex.linkIngredient(row.getRecipeId(), row.getIngredientId());
+            });
+            if (instructionIndex != null) {
+                chunk.forEach(instructionIndex::removeRecipe);
+                recipeRepository.findInstructionsByIdIn(chunk).forEach(row -> instructionIndex.indexInstruction(row.getRecipeId(), row.getInstruction()));
+            }
+        }
+    }
+
+    private static List<List<Long>> chunks(Set<Long> ids) {
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i += RELOAD_CHUNK_SIZE) {
+            chunks.add(sorted.subList(i, Math.min(sorted.size(), i + RELOAD_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
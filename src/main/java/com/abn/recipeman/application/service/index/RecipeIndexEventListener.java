@@ -0,0 +1,309 @@
+package com.abn.recipeman.application.service.index;
+
+import com.abn.recipeman.application.service.RecipeAttributeType;
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Ingredient;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import org.hibernate.Hibernate;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Hibernate event listener applying every committed change of a recipe, its attributes or its ingredients to the
+ * {@link RecipeFilterIndex}, of its ingredients to the {@link RecipeSimilarityIndex}, and of a recipe instruction to
+ * the {@link InMemoryInstructionSearchIndex} when present.
+ * <p>
+ * Changes are collected as they are flushed, with the state they were flushed with, and applied once the transaction
+ * has committed, so no other transaction sees them before; a rolled back transaction leaves the indexes untouched.
+ * The touched ids are reloaded by {@link RecipeFilterIndexLoader} instead when a change could not be resolved at flush,
+ * the index was not loaded yet or the outcome of the transaction is unknown. The {@link IngredientSuggestIndex} is
+ * refreshed once a transaction touching ingredients is over.
+ */
+@Component
+public class RecipeIndexEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener {
+
+    private static final String RECIPE_ATTRIBUTES_ROLE = Recipe.class.getName() + ".attributes";
+
+    private final RecipeFilterIndex index;
+
+    private final RecipeFilterIndexLoader loader;
+
+    private final InMemoryInstructionSearchIndex instructionIndex;
+
+    private final IngredientSuggestIndex suggestIndex;
+
+    private final RecipeSimilarityIndex similarityIndex;
+
+    public RecipeIndexEventListener(RecipeFilterIndex index, RecipeFilterIndexLoader loader, ObjectProvider<InMemoryInstructionSearchIndex> instructionIndex,
+                                    IngredientSuggestIndex suggestIndex, RecipeSimilarityIndex similarityIndex) {
+        this.index = index;
+        this.loader = loader;
+        this.instructionIndex = instructionIndex.getIfAvailable();
+        this.suggestIndex = suggestIndex;
+        this.similarityIndex = similarityIndex;
+    }
+
+    /**
+     * @return {@code true} if the current transaction has flushed changes the indexes do not hold yet.
+     */
+    public boolean hasUncommittedChanges() {
+        return TransactionSynchronizationManager.getResource(this) != null;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        collect(touched -> {
+            Object entity = event.getEntity();
+            if (entity instanceof Recipe) {
+                Recipe recipe = (Recipe) entity;
+                touched.recipeIds.add(recipe.getId());
+                indexServingNumber(recipe, touched);
+                indexAttributes(recipe, recipe.getAttributes(), touched);
+                indexInstruction(recipe, touched);
+            } else if (entity instanceof RecipeIngredient) {
+                linkIngredient((RecipeIngredient) entity, touched);
+            } else if (entity instanceof Ingredient) {
+                indexIngredient((Ingredient) entity, touched);
+            }
+        });
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        collect(touched -> {
+            Object entity = event.getEntity();
+            if (entity instanceof Recipe) {
+                Recipe recipe = (Recipe) entity;
+                touched.recipeIds.add(recipe.getId());
+                indexServingNumber(recipe, touched);
+                if (isDirty(event, "instruction")) {
+                    indexInstruction(recipe, touched);
+                }
+            } else if (entity instanceof RecipeIngredient) {
+                Object[] oldState = event.getOldState();
+                if (oldState == null) {
+                    touched.reloadAfterCommit = true;
+                } else {
+                    EntityPersister persister = event.getPersister();
+                    unlinkIngredient(
+                            (Recipe) oldState[persister.getEntityMetamodel().getPropertyIndex("recipe")],
+                            (Ingredient) oldState[persister.getEntityMetamodel().getPropertyIndex("ingredient")],
+                            touched
+                    );
+                }
+                linkIngredient((RecipeIngredient) entity, touched);
+            } else if (entity instanceof Ingredient) {
+                indexIngredient((Ingredient) entity, touched);
+            } else if (entity instanceof Attribute) {
+                // the recipes having the attribute are not known here, let the loader find them once the transaction is over
+                touched.attributeIds.add(((Attribute) entity).getId());
+                touched.reloadAfterCommit = true;
+            }
+        });
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        collect(touched -> {
+            Object entity = event.getEntity();
+            if (entity instanceof Recipe) {
+                long recipeId = (Long) event.getId();
+                touched.recipeIds.add(recipeId);
+                touched.changes.add(() -> {
+                    index.removeRecipe(recipeId);
+                    similarityIndex.removeRecipe(recipeId);
+                    if (instructionIndex != null) {
+                        instructionIndex.removeRecipe(recipeId);
+                    }
+                });
+            } else if (entity instanceof RecipeIngredient) {
+                EntityPersister persister = event.getPersister();
+                Object[] deletedState = event.getDeletedState();
+                unlinkIngredient(
+                        (Recipe) deletedState[persister.getEntityMetamodel().getPropertyIndex("recipe")],
+                        (Ingredient) deletedState[persister.getEntityMetamodel().getPropertyIndex("ingredient")],
+                        touched
+                );
+            } else if (entity instanceof Ingredient) {
+                long ingredientId = (Long) event.getId();
+                touched.ingredientIds.add(ingredientId);
+                touched.changes.add(() -> index.removeIngredient(ingredientId));
+            }
+        });
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        collect(touched -> onCollectionChange(event, touched));
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        collect(touched -> onCollectionChange(event, touched));
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static boolean isDirty(PostUpdateEvent event, String propertyName) {
+        int propertyIndex = event.getPersister().getEntityMetamodel().getPropertyIndex(propertyName);
+        int[] dirtyProperties = event.getDirtyProperties();
+        if (dirtyProperties == null) {
+            return event.getOldState() == null || !Objects.equals(event.getOldState()[propertyIndex], event.getState()[propertyIndex]);
+        }
+        return Arrays.stream(dirtyProperties).anyMatch(dirty -> dirty == propertyIndex);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onCollectionChange(AbstractCollectionEvent event, Touched touched) {
+        if (!(event.getAffectedOwnerOrNull() instanceof Recipe) || !RECIPE_ATTRIBUTES_ROLE.equals(event.getCollection().getRole())) {
+            return;
+        }
+        Recipe recipe = (Recipe) event.getAffectedOwnerOrNull();
+        touched.recipeIds.add(recipe.getId());
+        indexAttributes(recipe, (Collection<Attribute>) event.getCollection(), touched);
+    }
+
+    private void indexServingNumber(Recipe recipe, Touched touched) {
+        long recipeId = recipe.getId();
+        Integer servingNumber = recipe.getServingNumber();
+        touched.changes.add(() -> index.indexServingNumber(recipeId, servingNumber));
+    }
+
+    private void indexInstruction(Recipe recipe, Touched touched) {
+        if (instructionIndex == null) {
+            return;
+        }
+        long recipeId = recipe.getId();
+        String instruction = recipe.getInstruction();
+        touched.changes.add(() -> instructionIndex.indexInstruction(recipeId, instruction));
+    }
+
+    private void indexAttributes(Recipe recipe, Collection<Attribute> attributes, Touched touched) {
+        if (attributes == null || !Hibernate.isInitialized(attributes)) {
+            return;
+        }
+        Set<RecipeAttributeType> types = EnumSet.noneOf(RecipeAttributeType.class);
+        for (Attribute attribute : attributes) {
+            if (!Hibernate.isInitialized(attribute) || attribute.getRecipeAttributeType() == null) {
+                // only a reference is known here, let the loader resolve it once the transaction is over
+                touched.reloadAfterCommit = true;
+                return;
+            }
+            types.add(attribute.getRecipeAttributeType());
+        }
+        long recipeId = recipe.getId();
+        touched.changes.add(() -> index.indexAttributes(recipeId, types));
+    }
+
+    private void indexIngredient(Ingredient ingredient, Touched touched) {
+        long ingredientId = ingredient.getId();
+        String name = ingredient.getName();
+        touched.ingredientIds.add(ingredientId);
+        touched.changes.add(() -> index.indexIngredient(ingredientId, name));
+    }
+
+    private void linkIngredient(RecipeIngredient recipeIngredient, Touched touched) {
+        Recipe recipe = recipeIngredient.getRecipe();
+        Ingredient ingredient = recipeIngredient.getIngredient();
+        if (recipe == null || ingredient == null) {
+            return;
+        }
+        long recipeId = recipe.getId();
+        long ingredientId = ingredient.getId();
+        touched.recipeIds.add(recipeId);
+        touched.ingredientIds.add(ingredientId);
+        String name = Hibernate.isInitialized(ingredient) ? ingredient.getName() : null;
+        if (name == null) {
+            touched.reloadAfterCommit = true;
+        }
+        touched.changes.add(() -> {
+            index.linkIngredient(recipeId, ingredientId, name);
+            similarityIndex.linkIngredient(recipeId, ingredientId);
+        });
+    }
+
+    private void unlinkIngredient(Recipe recipe, Ingredient ingredient, Touched touched) {
+        if (recipe == null || ingredient == null) {
+            return;
+        }
+        long recipeId = recipe.getId();
+        long ingredientId = ingredient.getId();
+        touched.recipeIds.add(recipeId);
+        touched.ingredientIds.add(ingredientId);
+        touched.changes.add(() -> {
+            index.unlinkIngredient(recipeId, ingredientId);
+            similarityIndex.unlinkIngredient(recipeId, ingredientId);
+        });
+    }
+
+    /**
+     * Collect the changes of an event in the ones of the current transaction, registering the synchronization applying
+     * them once the event has touched something. Outside of a transaction the changes are applied at once.
+     */
+    private void collect(Consumer<Touched> collector) {
+        boolean synchronizationActive = TransactionSynchronizationManager.isSynchronizationActive();
+        Touched touched = synchronizationActive ? (Touched) TransactionSynchronizationManager.getResource(this) : null;
+        if (touched != null) {
+            collector.accept(touched);
+            return;
+        }
+        touched = new Touched();
+        collector.accept(touched);
+        if (touched.isEmpty()) {
+            return;
+        }
+        if (synchronizationActive) {
+            TransactionSynchronizationManager.bindResource(this, touched);
+            TransactionSynchronizationManager.registerSynchronization(touched);
+        } else {
+            touched.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    private final class Touched implements TransactionSynchronization {
+
+        private final Set<Long> recipeIds = new HashSet<>();
+
+        private final Set<Long> ingredientIds = new HashSet<>();
+
+        private final Set<Long> attributeIds = new HashSet<>();
+
+        private final List<Runnable> changes = new ArrayList<>();
+
+        private boolean reloadAfterCommit;
+
+        private boolean isEmpty() {
+            return recipeIds.isEmpty() && ingredientIds.isEmpty() && attributeIds.isEmpty();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(RecipeIndexEventListener.this);
+            if (status == STATUS_ROLLED_BACK) {
+                return;
+            }
+            // an unknown outcome may have been a commit
+            if (status != STATUS_COMMITTED || reloadAfterCommit || !index.isReady()) {
+                loader.reload(recipeIds, ingredientIds, attributeIds);
+                return;
+            }
+            changes.forEach(Runnable::run);
+            index.advanceGeneration();
+            if (!ingredientIds.isEmpty()) {
+                suggestIndex.refresh();
+            }
+        }
+    }
+}
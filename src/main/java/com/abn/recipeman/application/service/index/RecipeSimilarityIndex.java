@@ -0,0 +1,297 @@
+package com.abn.recipeman.application.service.index;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident locality-sensitive hashing index of the ingredient sets of the recipes, finding the recipes sharing the
+ * most ingredients with a given one without comparing it to the whole catalog.
+ * <p>
+ * The MinHash signature of an ingredient set is cut in {@code bands} of {@code rows} values, and every band is hashed
+ * to a bucket holding a bitmap of recipe ids. Two recipes land in a same bucket of a band with a probability of
+ * {@code J^rows}, {@code J} being the Jaccard similarity of their ingredient sets, so similar recipes almost always
+ * share a bucket while dissimilar ones rarely do. The candidates of a recipe are read from its smallest buckets first,
+ * up to {@code max-candidates}, and ranked by the exact Jaccard similarity of their ingredient sets.
+ * <p>
+ * Only the ingredient sets are kept, signatures are derived from them whenever the buckets of a recipe change. The
+ * index is loaded by {@link RecipeFilterIndexLoader} and kept in sync by {@link RecipeIndexEventListener}, together
+ * with the {@link RecipeFilterIndex}; the buckets are built once the initial load is complete.
+ */
+@Component
+public class RecipeSimilarityIndex {
+
+    private static final long[] NO_INGREDIENTS = new long[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, long[]> ingredientsByRecipe = new HashMap<>();
+
+    private final Map<Long, Roaring64NavigableMap> recipesByBucket = new HashMap<>();
+
+    private final int bands;
+
+    private final int rows;
+
+    private final int maxCandidates;
+
+    private final long[] hashSeeds;
+
+    private volatile boolean ready;
+
+    public RecipeSimilarityIndex(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Similarity properties = applicationProperties.getSimilarity();
+        this.bands = properties.getBands();
+        this.rows = properties.getRows();
+        this.maxCandidates = properties.getMaxCandidates();
+        this.hashSeeds = new SplittableRandom(properties.getSeed()).longs(bands * rows).toArray();
+    }
+
+    /**
+     * @return {@code true} once the initial load has completed and the index can be queried.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Bucket every loaded recipe, from then on the buckets follow every change.
+     */
+    void markReady() {
+        lock.writeLock().lock();
+        try {
+            ingredientsByRecipe.forEach((recipeId, ingredientIds) -> addToBuckets(recipeId, bandKeys(ingredientIds)));
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the recipes sharing the most ingredients with the given one, the most similar first. The search is
+     * approximate: a recipe sharing few ingredients with the given one may be missed.
+     *
+     * @param recipeId the id of the recipe to find similar ones for.
+     * @param limit    the most recipes to return.
+     * @return the ids of the similar recipes, an empty list if the recipe is not indexed or uses no ingredient.
+     */
+    public List<Long> similarRecipes(long recipeId, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] ingredientIds = ingredientsByRecipe.get(recipeId);
+            if (!ready || ingredientIds == null || limit <= 0) {
+                return Collections.emptyList();
+            }
+            PriorityQueue<Similarity> best = new PriorityQueue<>(limit + 1);
+            LongIterator candidates = candidates(recipeId, ingredientIds).getLongIterator();
+            for (int scored = 0; scored < maxCandidates && candidates.hasNext(); scored++) {
+                long candidateId = candidates.next();
+                best.add(new Similarity(candidateId, jaccard(ingredientIds, ingredientsByRecipe.get(candidateId))));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<Long> result = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                result.add(best.poll().recipeId);
+            }
+            Collections.reverse(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the given recipes per ingredient in one pass over their ingredient sets.
+     *
+     * @param recipeIds the recipes to count.
+     * @return the counts by ingredient id, of every ingredient used by any of the recipes.
+     */
+    public Map<Long, Long> countIngredients(Roaring64NavigableMap recipeIds) {
+        lock.readLock().lock();
+        try {
+            Map<Long, long[]> counts = new HashMap<>();
+            recipeIds.forEach(recipeId -> {
+                for (long ingredientId : ingredientsByRecipe.getOrDefault(recipeId, NO_INGREDIENTS)) {
+                    counts.computeIfAbsent(ingredientId, key -> new long[1])[0]++;
+                }
+            });
+            Map<Long, Long> result = new HashMap<>();
+            counts.forEach((ingredientId, count) -> result.put(ingredientId, count[0]));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void linkIngredient(long recipeId, long ingredientId) {
+        lock.writeLock().lock();
+        try {
+            long[] ingredientIds = ingredientsByRecipe.getOrDefault(recipeId, NO_INGREDIENTS);
+            int position = Arrays.binarySearch(ingredientIds, ingredientId);
+            if (position >= 0) {
+                return;
+            }
+            long[] linked = new long[ingredientIds.length + 1];
+            int insertion = -position - 1;
+            System.arraycopy(ingredientIds, 0, linked, 0, insertion);
+            linked[insertion] = ingredientId;
+            System.arraycopy(ingredientIds, insertion, linked, insertion + 1, ingredientIds.length - insertion);
+            replaceIngredients(recipeId, ingredientIds, linked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void unlinkIngredient(long recipeId, long ingredientId) {
+        lock.writeLock().lock();
+        try {
+            long[] ingredientIds = ingredientsByRecipe.getOrDefault(recipeId, NO_INGREDIENTS);
+            int position = Arrays.binarySearch(ingredientIds, ingredientId);
+            if (position < 0) {
+                return;
+            }
+            long[] unlinked = new long[ingredientIds.length - 1];
+            System.arraycopy(ingredientIds, 0, unlinked, 0, position);
+            System.arraycopy(ingredientIds, position + 1, unlinked, position, unlinked.length - position);
+            replaceIngredients(recipeId, ingredientIds, unlinked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeRecipe(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            replaceIngredients(recipeId, ingredientsByRecipe.getOrDefault(recipeId, NO_INGREDIENTS), NO_INGREDIENTS);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replaceIngredients(long recipeId, long[] previous, long[] current) {
+        if (current.length == 0) {
+            ingredientsByRecipe.remove(recipeId);
+        } else {
+            ingredientsByRecipe.put(recipeId, current);
+        }
+        if (!ready) {
+            return;
+        }
+        long[] previousKeys = previous.length == 0 ? NO_INGREDIENTS : bandKeys(previous);
+        long[] currentKeys = current.length == 0 ? NO_INGREDIENTS : bandKeys(current);
+        for (int band = 0; band < previousKeys.length; band++) {
+            if (currentKeys.length == 0 || previousKeys[band] != currentKeys[band]) {
+                Roaring64NavigableMap recipes = recipesByBucket.get(previousKeys[band]);
+                if (recipes != null) {
+                    recipes.removeLong(recipeId);
+                    if (recipes.isEmpty()) {
+                        recipesByBucket.remove(previousKeys[band]);
+                    }
+                }
+            }
+        }
+        addToBuckets(recipeId, currentKeys);
+    }
+
+    private void addToBuckets(long recipeId, long[] keys) {
+        for (long key : keys) {
+            recipesByBucket.computeIfAbsent(key, bucket -> new Roaring64NavigableMap()).addLong(recipeId);
+        }
+    }
+
+    /**
+     * Get the recipes sharing a bucket with the given one, from its most selective buckets first.
+     */
+    private Roaring64NavigableMap candidates(long recipeId, long[] ingredientIds) {
+        List<Roaring64NavigableMap> buckets = new ArrayList<>(bands);
+        for (long key : bandKeys(ingredientIds)) {
+            Roaring64NavigableMap recipes = recipesByBucket.get(key);
+            if (recipes != null) {
+                buckets.add(recipes);
+            }
+        }
+        buckets.sort(Comparator.comparingLong(Roaring64NavigableMap::getLongCardinality));
+        Roaring64NavigableMap candidates = new Roaring64NavigableMap();
+        for (Roaring64NavigableMap recipes : buckets) {
+            if (candidates.getLongCardinality() > maxCandidates) {
+                break;
+            }
+            candidates.or(recipes);
+        }
+        candidates.removeLong(recipeId);
+        return candidates;
+    }
+
+    /**
+     * Hash every band of the MinHash signature of the given ingredients, each with its band number.
+     */
+    private long[] bandKeys(long[] ingredientIds) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                long seed = hashSeeds[band * rows + row];
+                long min = Long.MAX_VALUE;
+                for (long ingredientId : ingredientIds) {
+                    min = Math.min(min, mix64(ingredientId ^ seed));
+                }
+                key = mix64(key * 31 + min);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static double jaccard(long[] left, long[] right) {
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] == right[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (left[i] < right[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (left.length + right.length - common);
+    }
+
+    private static long mix64(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * A candidate and its similarity, the least similar first and the highest id first among equals, so a bounded
+     * queue keeps the most similar, lowest ids.
+     */
+    private static final class Similarity implements Comparable<Similarity> {
+
+        private final long recipeId;
+
+        private final double jaccard;
+
+        private Similarity(long recipeId, double jaccard) {
+            this.recipeId = recipeId;
+            this.jaccard = jaccard;
+        }
+
+        @Override
+        public int compareTo(Similarity other) {
+            int byJaccard = Double.compare(jaccard, other.jaccard);
+            return byJaccard != 0 ? byJaccard : Long.compare(other.recipeId, recipeId);
+        }
+    }
+}
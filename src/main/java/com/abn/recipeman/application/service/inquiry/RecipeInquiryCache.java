@@ -0,0 +1,141 @@
+package com.abn.recipeman.application.service.inquiry;
+
+import com.abn.recipeman.application.service.index.RecipeFilterIndex;
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cache of inquiry results keyed by the {@link RecipeInquiryPlan}, the requested window and the
+ * {@link RecipeFilterIndex#generation() generation} of the recipe data.
+ * <p>
+ * Writes advance the generation, which makes every entry computed before them unreachable; the first inquiry of a new
+ * generation removes them. The cache is bounded by the total weight of its entries, the number of recipes they hold,
+ * so a few large windows cannot hold as much memory as as many small ones. Results computed inside a read-write
+ * transaction may contain its uncommitted writes, so they are neither cached nor taken from the cache.
+ */
+@Component
+public class RecipeInquiryCache {
+
+    public static final String CACHE_NAME = RecipeInquiryCache.class.getName();
+
+    private final RecipeFilterIndex recipeFilterIndex;
+
+    private final Cache<Object, Object> cache;
+
+    private final AtomicLong currentGeneration = new AtomicLong();
+
+    public RecipeInquiryCache(RecipeFilterIndex recipeFilterIndex, CacheManager cacheManager) {
+        this.recipeFilterIndex = recipeFilterIndex;
+        this.cache = cacheManager.getCache(CACHE_NAME);
+    }
+
+    /**
+     * Get the cached result of an inquiry, computing and caching it if absent.
+     *
+     * @param plan   the inquiry plan.
+     * @param window what identifies the requested part of the result, with value equality.
+     * @param loader computes the result.
+     * @param weight the number of recipes a result holds.
+     * @param <T>    the type of the result, must not be mutated once returned.
+     * @return the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(RecipeInquiryPlan plan, Object window, Supplier<T> loader, ToIntFunction<? super T> weight) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loader.get();
+        }
+        // read before computing, so a result racing with a write is stored under the generation it may be stale for
+        long generation = recipeFilterIndex.generation();
+        evictOlderThan(generation);
+        Key key = new Key(generation, plan, window);
+        Weighted cached = (Weighted) cache.get(key);
+        if (cached != null) {
+            return (T) cached.result;
+        }
+        T result = loader.get();
+        cache.put(key, new Weighted(result, weight.applyAsInt(result)));
+        return result;
+    }
+
+    /**
+     * Remove the entries of the generations before the given one, once per generation.
+     */
+    private void evictOlderThan(long generation) {
+        long current = currentGeneration.get();
+        if (generation <= current || !currentGeneration.compareAndSet(current, generation)) {
+            return;
+        }
+        for (Iterator<Cache.Entry<Object, Object>> entries = cache.iterator(); entries.hasNext(); ) {
+            if (((Key) entries.next().getKey()).generation < generation) {
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Weighs the entries of the cache by the number of recipes their result holds, at least {@code 1}.
+     */
+    public static class ResultWeigher implements Weigher<Object, Object>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int weigh(Object key, Object value) {
+            return Math.max(1, ((Weighted) value).weight);
+        }
+    }
+
+    private static final class Weighted {
+
+        private final Object result;
+
+        private final int weight;
+
+        private Weighted(Object result, int weight) {
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Key {
+
+        private final long generation;
+
+        private final RecipeInquiryPlan plan;
+
+        private final Object window;
+
+        private Key(long generation, RecipeInquiryPlan plan, Object window) {
+            this.generation = generation;
+            this.plan = plan;
+            this.window = window;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return generation == that.generation && plan.equals(that.plan) && window.equals(that.window);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(generation, plan, window);
+        }
+    }
+}
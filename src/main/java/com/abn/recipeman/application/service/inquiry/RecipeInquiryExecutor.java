@@ -0,0 +1,241 @@
+package com.abn.recipeman.application.service.inquiry;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.model.dto.RecipeFacetsDTO;
+import com.abn.recipeman.application.service.RecipeAttributeType;
+import com.abn.recipeman.application.service.index.InstructionSearchIndex;
+import com.abn.recipeman.application.service.index.RecipeFacetCounter;
+import com.abn.recipeman.application.service.index.RecipeFilterIndex;
+import com.abn.recipeman.application.service.index.RecipeIndexEventListener;
+import com.abn.recipeman.persistence.repository.RecipeIngredientRepository;
+import com.abn.recipeman.persistence.repository.RecipeRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs a {@link RecipeInquiryPlan} and returns the ids of the requested page, in page order.
+ * <p>
+ * The set stages are answered from the {@link RecipeFilterIndex} when it is enabled and loaded: the positive stages
+ * are intersected, starting from the first one, and the excluded ingredients are subtracted at the end, so the
+ * universe of all recipes is only materialized when a plan has nothing but exclusions. Otherwise every stage is
+ * pushed down to the database, with the exclusions as a {@code NOT EXISTS} anti-join; the attribute, included
+ * ingredient and instruction lookups are independent there, {@link RecipeInquiryLookups} may run them concurrently.
+ * The indexes only hold committed changes, so a transaction that has changed recipes is answered by the database
+ * alone.
+ * <p>
+ * The instruction text is matched by the {@link InstructionSearchIndex} once it is ready. Until then it falls back to a
+ * {@code LIKE} substring match in the database.
+ */
+@Component
+public class RecipeInquiryExecutor {
+
+    private final Logger log = LoggerFactory.getLogger(RecipeInquiryExecutor.class);
+
+    private final RecipeFilterIndex recipeFilterIndex;
+
+    private final InstructionSearchIndex instructionSearchIndex;
+
+    private final RecipeRepository recipeRepository;
+
+    private final RecipeIngredientRepository recipeIngredientRepository;
+
+    private final RecipeInquiryLookups recipeInquiryLookups;
+
+    private final RecipeFacetCounter recipeFacetCounter;
+
+    private final RecipeIndexEventListener recipeIndexEventListener;
+
+    private final ApplicationProperties applicationProperties;
+
+    public RecipeInquiryExecutor(RecipeFilterIndex recipeFilterIndex,
+                                 InstructionSearchIndex instructionSearchIndex,
+                                 RecipeRepository recipeRepository,
+                                 RecipeIngredientRepository recipeIngredientRepository,
+                                 RecipeInquiryLookups recipeInquiryLookups,
+                                 RecipeFacetCounter recipeFacetCounter,
+                                 RecipeIndexEventListener recipeIndexEventListener,
+                                 ApplicationProperties applicationProperties) {
+        this.recipeFilterIndex = recipeFilterIndex;
+        this.instructionSearchIndex = instructionSearchIndex;
+        this.recipeRepository = recipeRepository;
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.recipeInquiryLookups = recipeInquiryLookups;
+        this.recipeFacetCounter = recipeFacetCounter;
+        this.recipeIndexEventListener = recipeIndexEventListener;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Get the ids of one page of the recipes matching the plan.
+     *
+     * @param plan     the inquiry plan, must not be empty.
+     * @param pageable the pagination information.
+     * @return the ids of the recipes of the page.
+     */
+    public List<Long> execute(RecipeInquiryPlan plan, Pageable pageable) {
+        return execute(plan, null, pageable);
+    }
+
+    /**
+     * Get the ids of the recipes matching the plan that follow {@code afterId}, in id order.
+     *
+     * @param plan    the inquiry plan, must not be empty.
+     * @param afterId the last id already returned, or {@code null} to start from the first recipe.
+     * @param limit   the maximum number of ids to return.
+     * @return the ids of the recipes, in id order.
+     */
+    public List<Long> executeAfter(RecipeInquiryPlan plan, Long afterId, int limit) {
+        return execute(plan, afterId, PageRequest.of(0, limit));
+    }
+
+    private List<Long> execute(RecipeInquiryPlan plan, Long afterId, Pageable pageable) {
+        if (useIndex()) {
+            return executeOnIndex(plan, afterId, pageable);
+        }
+        return executeOnDatabase(plan, afterId, pageable);
+    }
+
+    /**
+     * Count the recipes matching the plan per attribute, per serving number and for the ingredients used by most of
+     * them, by the {@link RecipeFacetCounter}.
+     *
+     * @param plan           the inquiry plan, must not be empty.
+     * @param topIngredients the number of ingredients to count.
+     * @return the counts, empty when the index is disabled, not loaded yet or behind the current transaction, or when
+     * the instruction text can only be matched by the database.
+     */
+    public Optional<RecipeFacetsDTO> facets(RecipeInquiryPlan plan, int topIngredients) {
+        boolean instructionOnIndex = plan.getInstruction() != null && instructionSearchIndex.isReady();
+        if (!useIndex() || (plan.getInstruction() != null && !instructionOnIndex)) {
+            return Optional.empty();
+        }
+        return Optional.of(recipeFacetCounter.count(matchOnIndex(plan, instructionOnIndex), topIngredients));
+    }
+
+    private boolean useIndex() {
+        return applicationProperties.getInquiry().isUseIndex() && recipeFilterIndex.isReady() && !recipeIndexEventListener.hasUncommittedChanges();
+    }
+
+    private List<Long> executeOnIndex(RecipeInquiryPlan plan, Long afterId, Pageable pageable) {
+        boolean instructionOnIndex = plan.getInstruction() != null && instructionSearchIndex.isReady();
+        Roaring64NavigableMap candidates = matchOnIndex(plan, instructionOnIndex);
+        String instruction = instructionOnIndex ? null : plan.getInstruction();
+        if (candidates != null && candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        if (instruction == null && !pageable.getSort().isSorted()) {
+            return page(candidates, afterId, pageable);
+        }
+        if (candidates == null) {
+            return recipeRepository.inquiryRecipeIds(null, null, null, instruction, afterId, pageable);
+        }
+        if (candidates.getLongCardinality() > applicationProperties.getInquiry().getMaxIdListSize()) {
+            log.debug("{} candidate recipes are too many for an id list, filtering in the database", candidates.getLongCardinality());
+            return executeOnDatabase(plan, afterId, pageable);
+        }
+        return recipeRepository.inquiryRecipeIds(toList(candidates), null, null, instruction, afterId, pageable);
+    }
+
+    /**
+     * Get the recipes matching the set stages of the plan, and its instruction when searched on the index, or
+     * {@code null} for all recipes when the plan has no such stage.
+     */
+    private Roaring64NavigableMap matchOnIndex(RecipeInquiryPlan plan, boolean instructionOnIndex) {
+        Roaring64NavigableMap candidates = null;
+        for (RecipeAttributeType attribute : plan.getAttributes()) {
+            candidates = intersect(candidates, recipeFilterIndex.recipesWithAttribute(attribute));
+        }
+        for (String ingredientName : plan.getIncludeIngredients()) {
+            candidates = intersect(candidates, recipeFilterIndex.recipesWithIngredient(ingredientName));
+        }
+        if (plan.getServingNumber() != null) {
+            candidates = intersect(candidates, recipeFilterIndex.recipesWithServingNumber(plan.getServingNumber()));
+        }
+        if (instructionOnIndex) {
+            candidates = intersect(candidates, instructionSearchIndex.search(plan.getInstruction()));
+        }
+        if (!plan.getExcludeIngredients().isEmpty()) {
+            if (candidates == null) {
+                candidates = recipeFilterIndex.allRecipes();
+            }
+            candidates.andNot(recipeFilterIndex.recipesWithAnyIngredient(plan.getExcludeIngredients()));
+        }
+        return candidates;
+    }
+
+    private List<Long> executeOnDatabase(RecipeInquiryPlan plan, Long afterId, Pageable pageable) {
+        List<Supplier<Collection<Long>>> lookups = new ArrayList<>(3);
+        if (!plan.getAttributes().isEmpty()) {
+            lookups.add(() -> recipeRepository.findIdsHavingAllAttributes(plan.getAttributes(), plan.getAttributes().size()));
+        }
+        if (!plan.getIncludeIngredients().isEmpty()) {
+            lookups.add(() -> recipeIngredientRepository.findRecipeIdsHavingAllIngredients(plan.getIncludeIngredients(), plan.getIncludeIngredients().size()));
+        }
+        String instruction = plan.getInstruction();
+        if (instruction != null && instructionSearchIndex.isReady() && !recipeIndexEventListener.hasUncommittedChanges()) {
+            lookups.add(() -> toList(instructionSearchIndex.search(plan.getInstruction())));
+            instruction = null;
+        }
+        Set<Long> candidates = null;
+        for (Collection<Long> recipeIds : recipeInquiryLookups.run(lookups)) {
+            candidates = intersect(candidates, recipeIds);
+        }
+        if (candidates != null && candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return recipeRepository.inquiryRecipeIds(
+                candidates,
+                plan.getExcludeIngredients(),
+                plan.getServingNumber(),
+                instruction,
+                afterId,
+                pageable
+        );
+    }
+
+    private static Roaring64NavigableMap intersect(Roaring64NavigableMap candidates, Roaring64NavigableMap recipeIds) {
+        if (candidates == null) {
+            return recipeIds;
+        }
+        candidates.and(recipeIds);
+        return candidates;
+    }
+
+    private static Set<Long> intersect(Set<Long> candidates, Collection<Long> recipeIds) {
+        if (candidates == null) {
+            return new HashSet<>(recipeIds);
+        }
+        candidates.retainAll(recipeIds);
+        return candidates;
+    }
+
+    private static List<Long> page(Roaring64NavigableMap recipeIds, Long afterId, Pageable pageable) {
+        // rankLong counts the ids lower than or equal to afterId, i.e. the rank of the first id following it
+        long start = afterId == null ? 0 : recipeIds.rankLong(afterId);
+        if (pageable.isUnpaged()) {
+            return toList(recipeIds).subList((int) start, (int) recipeIds.getLongCardinality());
+        }
+        long first = start + pageable.getOffset();
+        long end = Math.min(recipeIds.getLongCardinality(), first + pageable.getPageSize());
+        // sized by what the page holds, not by the page size asked for
+        List<Long> pageIds = new ArrayList<>((int) Math.max(0, end - first));
+        for (long rank = first; rank < end; rank++) {
+            pageIds.add(recipeIds.select(rank));
+        }
+        return pageIds;
+    }
+
+    private static List<Long> toList(Roaring64NavigableMap recipeIds) {
+        List<Long> result = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, recipeIds.getLongCardinality()));
+        recipeIds.forEach(result::add);
+        return result;
+    }
+}
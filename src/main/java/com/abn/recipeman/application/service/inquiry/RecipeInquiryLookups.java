@@ -0,0 +1,123 @@
+package com.abn.recipeman.application.service.inquiry;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.persistence.statistics.SqlStatementCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the independent candidate lookups of an inquiry, one after the other or, with
+ * {@code recipeman.inquiry.parallel-lookups}, concurrently on a bounded pool, each in a read-only transaction and so
+ * on a connection of its own.
+ * <p>
+ * Parallel lookups only see committed data, so inside a read-write transaction they run one after the other on the
+ * caller's connection. They all have to complete within {@code lookup-timeout-millis}, counted from their submission
+ * and also set as the timeout of their transactions, so their statements are cancelled by the database too; when one
+ * fails or the time is up, the others are cancelled. When the pool is saturated the inquiry fails at once rather than
+ * run a lookup on the caller's thread without a deadline. The statements of a parallel lookup are counted by the
+ * {@link SqlStatementCounter} scope of the caller once it has its result; the ones of a lookup cancelled are not.
+ */
+@Component
+public class RecipeInquiryLookups {
+
+    private final Logger log = LoggerFactory.getLogger(RecipeInquiryLookups.class);
+
+    private final ApplicationProperties.Inquiry properties;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ThreadPoolExecutor executor;
+
+    public RecipeInquiryLookups(ApplicationProperties applicationProperties, PlatformTransactionManager transactionManager) {
+        this.properties = applicationProperties.getInquiry();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // in whole seconds, rounded up
+        this.readOnlyTransaction.setTimeout((int) TimeUnit.MILLISECONDS.toSeconds(properties.getLookupTimeoutMillis() + 999));
+        int threads = properties.getLookupThreads();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(threads * 16),
+                new CustomizableThreadFactory("inquiry-lookup-"), new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Run the given lookups.
+     *
+     * @param lookups the lookups, independent of each other.
+     * @param <T>     the type of the lookup results.
+     * @return the results, in the order of the lookups.
+     * @throws QueryTimeoutException                if the parallel lookups took longer than {@code lookup-timeout-millis}.
+     * @throws TransientDataAccessResourceException if the pool cannot take the parallel lookups.
+     */
+    public <T> List<T> run(List<Supplier<T>> lookups) {
+        if (!properties.isParallelLookups() || lookups.size() < 2
+                || (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return lookups.stream().map(Supplier::get).collect(Collectors.toList());
+        }
+        log.debug("Running {} inquiry lookups in parallel", lookups.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getLookupTimeoutMillis());
+        List<Future<Counted<T>>> futures = new ArrayList<>(lookups.size());
+        try {
+            for (Supplier<T> lookup : lookups) {
+                futures.add(executor.submit(() -> {
+                    try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("inquiry lookup")) {
+                        return new Counted<>(readOnlyTransaction.execute(status -> lookup.get()), scope);
+                    }
+                }));
+            }
+            List<T> results = new ArrayList<>(lookups.size());
+            for (Future<Counted<T>> future : futures) {
+                Counted<T> counted = future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                SqlStatementCounter.addToCurrent(counted.scope);
+                results.add(counted.result);
+            }
+            return results;
+        } catch (RejectedExecutionException e) {
+            throw new TransientDataAccessResourceException("Inquiry lookup pool is saturated", e);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Inquiry lookups took more than " + properties.getLookupTimeoutMillis() + " ms", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Inquiry lookup failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the inquiry lookups", e);
+        } finally {
+            // only the lookups still running are cancelled
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Counted<T> {
+
+        private final T result;
+
+        private final SqlStatementCounter.Scope scope;
+
+        private Counted(T result, SqlStatementCounter.Scope scope) {
+            this.result = result;
+            this.scope = scope;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.abn.recipeman.application.service.inquiry;
+
+import com.abn.recipeman.application.model.dto.FilterRecipeDto;
+import com.abn.recipeman.application.service.RecipeAttributeType;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The stages a recipe inquiry is answered with, in execution order:
+ * <ol>
+ *     <li>attribute intersect: keep the recipes having every requested attribute,</li>
+ *     <li>include intersect: keep the recipes using every included ingredient,</li>
+ *     <li>exclude subtract: drop the recipes using any excluded ingredient,</li>
+ *     <li>scalar predicates: serving number and instruction text.</li>
+ * </ol>
+ * Empty stages are skipped. A plan without any stage matches nothing.
+ */
+public final class RecipeInquiryPlan {
+
+    private final Set<RecipeAttributeType> attributes;
+
+    private final SortedSet<String> includeIngredients;
+
+    private final SortedSet<String> excludeIngredients;
+
+    private final Integer servingNumber;
+
+    private final String instruction;
+
+    private RecipeInquiryPlan(Set<RecipeAttributeType> attributes,
+                              SortedSet<String> includeIngredients,
+                              SortedSet<String> excludeIngredients,
+                              Integer servingNumber,
+                              String instruction) {
+        this.attributes = Collections.unmodifiableSet(attributes);
+        this.includeIngredients = Collections.unmodifiableSortedSet(includeIngredients);
+        this.excludeIngredients = Collections.unmodifiableSortedSet(excludeIngredients);
+        this.servingNumber = servingNumber;
+        this.instruction = instruction;
+    }
+
+    public static RecipeInquiryPlan of(FilterRecipeDto filterRecipeDto) {
+        Set<RecipeAttributeType> attributes = EnumSet.noneOf(RecipeAttributeType.class);
+        if (filterRecipeDto.getAttributes() != null) {
+            filterRecipeDto.getAttributes().stream().filter(Objects::nonNull).forEach(attributes::add);
+        }
+        return new RecipeInquiryPlan(
+                attributes,
+                ingredientNames(filterRecipeDto.getIncludeIngredients()),
+                ingredientNames(filterRecipeDto.getExcludeIngredients()),
+                filterRecipeDto.getServingNumber(),
+                filterRecipeDto.getFilterInstruction()
+        );
+    }
+
+    private static SortedSet<String> ingredientNames(Set<String> names) {
+        if (names == null) {
+            return new TreeSet<>();
+        }
+        return names.stream().filter(Objects::nonNull).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * @return {@code true} if the plan has no stage at all.
+     */
+    public boolean isEmpty() {
+        return attributes.isEmpty() && includeIngredients.isEmpty() && excludeIngredients.isEmpty()
+                && servingNumber == null && instruction == null;
+    }
+
+    /**
+     * Get which stages the plan has, regardless of their values, as {@code +} separated stage names in a fixed order:
+     * {@code attributes}, {@code include}, {@code exclude}, {@code serving}, {@code instruction}. An empty plan is
+     * {@code none}.
+     *
+     * @return the shape of the plan, one of at most 32 values.
+     */
+    public String shape() {
+        StringJoiner shape = new StringJoiner("+");
+        shape.setEmptyValue("none");
+        if (!attributes.isEmpty()) {
+            shape.add("attributes");
+        }
+        if (!includeIngredients.isEmpty()) {
+            shape.add("include");
+        }
+        if (!excludeIngredients.isEmpty()) {
+            shape.add("exclude");
+        }
+        if (servingNumber != null) {
+            shape.add("serving");
+        }
+        if (instruction != null) {
+            shape.add("instruction");
+        }
+        return shape.toString();
+    }
+
+    public Set<RecipeAttributeType> getAttributes() {
+        return attributes;
+    }
+
+    public SortedSet<String> getIncludeIngredients() {
+        return includeIngredients;
+    }
+
+    public SortedSet<String> getExcludeIngredients() {
+        return excludeIngredients;
+    }
+
+    public Integer getServingNumber() {
+        return servingNumber;
+    }
+
+    public String getInstruction() {
+        return instruction;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecipeInquiryPlan)) {
+            return false;
+        }
+        RecipeInquiryPlan that = (RecipeInquiryPlan) o;
+        return attributes.equals(that.attributes)
+                && includeIngredients.equals(that.includeIngredients)
+                && excludeIngredients.equals(that.excludeIngredients)
+                && Objects.equals(servingNumber, that.servingNumber)
+                && Objects.equals(instruction, that.instruction);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(attributes, includeIngredients, excludeIngredients, servingNumber, instruction);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "RecipeInquiryPlan{" +
+                "attributes=" + attributes +
+                ", includeIngredients=" + includeIngredients +
+                ", excludeIngredients=" + excludeIngredients +
+                ", servingNumber=" + servingNumber +
+                ", instruction='" + instruction + "'" +
+                "}";
+    }
+}
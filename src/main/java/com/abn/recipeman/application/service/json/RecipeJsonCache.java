@@ -0,0 +1,120 @@
+package com.abn.recipeman.application.service.json;
+
+import com.abn.recipeman.application.model.dto.AttributeDTO;
+import com.abn.recipeman.application.model.dto.RecipeDTO;
+import com.abn.recipeman.application.service.coalescing.SingleFlight;
+import com.abn.recipeman.application.service.version.EntityVersions;
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the {@link SerializedRecipe JSON} of the recipes, keyed by recipe id, so the hot recipes are neither
+ * mapped nor serialized again.
+ * <p>
+ * Every entry holds the {@link #stamp(Long, SerializedRecipe) stamp} as of before its recipe was loaded and is only
+ * used while the stamp is current, so a write is never hidden, even when it races with the read that cached the
+ * entry, and the writes need not evict it. Concurrent misses of the same recipe share one load, see
+ * {@link SingleFlight}, and all get the entry of the load they joined, with the stamp its leader read: a caller joining
+ * a load begun before a write gets a recipe that is stale for its own stamp, so the stamp of the entry, not the current
+ * one, is the one to tag it with. Recipes read inside a read-write
+ * transaction may contain its uncommitted writes, so they are neither cached nor taken from the cache, and recipes not
+ * found are not cached.
+ */
+@Component
+public class RecipeJsonCache {
+
+    public static final String CACHE_NAME = RecipeJsonCache.class.getName();
+
+    private final EntityVersions versions;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Object, Object> cache;
+
+    private final SingleFlight<Long, Optional<SerializedRecipe>> loadFlight;
+
+    public RecipeJsonCache(EntityVersions versions, ObjectMapper objectMapper, CacheManager cacheManager,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.loadFlight = new SingleFlight<>("recipe-json", transactionManager, meterRegistry);
+    }
+
+    /**
+     * The current stamp of a recipe: the version of the recipe and of the attributes whose ids it holds, so the writes
+     * of other attributes leave it alone.
+     *
+     * @param id     the id of the recipe.
+     * @param recipe the JSON of the recipe.
+     * @return the stamp.
+     */
+    public long stamp(Long id, SerializedRecipe recipe) {
+        return Math.max(versions.version(Recipe.class, id), versions.version(Map.of(Attribute.class, recipe.getAttributeIds())));
+    }
+
+    /**
+     * Get the cached JSON of a recipe, loading, serializing and caching it if absent or stale.
+     *
+     * @param id     the id of the recipe.
+     * @param loader loads the recipe, in a read-only transaction unless the caller is in a transaction already.
+     * @return the JSON of the recipe.
+     */
+    public Optional<SerializedRecipe> get(Long id, Supplier<Optional<RecipeDTO>> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return load(id, loader);
+        }
+        SerializedRecipe cached = (SerializedRecipe) cache.get(id);
+        if (cached != null && cached.getStamp() == stamp(id, cached)) {
+            return Optional.of(cached);
+        }
+        return loadFlight.load(id, () -> {
+            Optional<SerializedRecipe> loaded = load(id, loader);
+            loaded.ifPresent(value -> cache.put(id, value));
+            return loaded;
+        });
+    }
+
+    /**
+     * Drop the JSON of a recipe.
+     *
+     * @param id the id of the recipe.
+     */
+    public void evict(Long id) {
+        cache.remove(id);
+    }
+
+    private Optional<SerializedRecipe> load(Long id, Supplier<Optional<RecipeDTO>> loader) {
+        // read before loading, so a recipe racing with a write is stored under a stamp it may be stale for; its
+        // attributes are only known once loaded, so their versions are taken up to the greatest one read before
+        long stamp = versions.version(Recipe.class, id);
+        long ceiling = versions.version(Attribute.class);
+        return loader.get().map(recipe -> {
+            List<Long> attributeIds = recipe.getAttributes().stream().map(AttributeDTO::getId).collect(Collectors.toList());
+            return serialize(Math.max(stamp, versions.version(Map.of(Attribute.class, attributeIds), ceiling)), attributeIds, recipe);
+        });
+    }
+
+    private SerializedRecipe serialize(long stamp, List<Long> attributeIds, RecipeDTO recipe) {
+        try {
+            return new SerializedRecipe(stamp, recipe.getVersion(), attributeIds, objectMapper.writeValueAsBytes(recipe));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.abn.recipeman.application.service.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The JSON of a {@link com.abn.recipeman.application.model.dto.RecipeDTO} as the API writes it, in UTF-8, along with
+ * its gzip variant, made the first time it is asked for.
+ * <p>
+ * The bytes are shared by every response of the recipe, so they are not to be modified.
+ */
+public final class SerializedRecipe {
+
+    private final long stamp;
+
+    private final Long version;
+
+    private final List<Long> attributeIds;
+
+    private final byte[] json;
+
+    private volatile byte[] gzip;
+
+    SerializedRecipe(long stamp, Long version, List<Long> attributeIds, byte[] json) {
+        this.stamp = stamp;
+        this.version = version;
+        this.attributeIds = attributeIds;
+        this.json = json;
+    }
+
+    /**
+     * @return the {@link RecipeJsonCache#stamp(Long, SerializedRecipe) stamp} as of before the recipe was loaded, the one
+     * to tag it with.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * @return the version of the recipe.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the ids of the attributes of the recipe.
+     */
+    List<Long> getAttributeIds() {
+        return attributeIds;
+    }
+
+    /**
+     * @return the JSON, in UTF-8.
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * @return the gzip of the JSON.
+     */
+    public byte[] getGzip() {
+        byte[] result = gzip;
+        if (result == null) {
+            // concurrent first calls may all compress, the bytes are the same
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 2 + 32);
+            try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            result = bytes.toByteArray();
+            gzip = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+package com.abn.recipeman.application.service.version;
+
+import com.abn.recipeman.domain.model.entity.Recipe;
+import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import org.hibernate.Hibernate;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Hibernate event listener advancing the {@link EntityVersions} of every entity written, and of the owner of every
+ * collection written, once the writing transaction has committed.
+ * <p>
+ * The ingredients of a recipe are part of it: writing a {@link RecipeIngredient} advances the version of its recipe
+ * too, and of the recipe it left when it is moved.
+ */
+@Component
+public class EntityVersionEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener {
+
+    private final EntityVersions versions;
+
+    public EntityVersionEventListener(EntityVersions versions) {
+        this.versions = versions;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        written(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        written(event.getEntity(), event.getId());
+        if (event.getEntity() instanceof RecipeIngredient && event.getOldState() != null) {
+            // the old state is only known when the session loaded the recipe ingredient before updating it, which
+            // every update of the services does, so a recipe ingredient moved to another recipe advances the one it left
+            Object oldRecipe = event.getOldState()[event.getPersister().getEntityMetamodel().getPropertyIndex("recipe")];
+            if (oldRecipe instanceof Recipe) {
+                written(Recipe.class, idOf((Recipe) oldRecipe));
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        written(event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        written(event.getAffectedOwnerOrNull(), event.getAffectedOwnerIdOrNull());
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        written(event.getAffectedOwnerOrNull(), event.getAffectedOwnerIdOrNull());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void written(Object entity, Serializable id) {
+        if (entity == null) {
+            return;
+        }
+        written(Hibernate.getClass(entity), id);
+        if (entity instanceof RecipeIngredient && ((RecipeIngredient) entity).getRecipe() != null) {
+            written(Recipe.class, idOf(((RecipeIngredient) entity).getRecipe()));
+        }
+    }
+
+    private void written(Class<?> type, Serializable id) {
+        if (!(id instanceof Long) || !versions.isVersioned(type)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.advance(Collections.singletonMap(type, Collections.singleton((Long) id)));
+            return;
+        }
+        Written written = (Written) TransactionSynchronizationManager.getResource(this);
+        if (written == null) {
+            written = new Written();
+            TransactionSynchronizationManager.bindResource(this, written);
+            TransactionSynchronizationManager.registerSynchronization(written);
+        }
+        written.idsByType.computeIfAbsent(type, key -> new HashSet<>()).add((Long) id);
+    }
+
+    private static Serializable idOf(Recipe recipe) {
+        // without initializing a proxy
+        return recipe instanceof HibernateProxy ? ((HibernateProxy) recipe).getHibernateLazyInitializer().getIdentifier() : recipe.getId();
+    }
+
+    private final class Written implements TransactionSynchronization {
+
+        private final Map<Class<?>, Set<Long>> idsByType = new HashMap<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EntityVersionEventListener.this);
+            // an unknown outcome may have been a commit
+            if (status != STATUS_ROLLED_BACK) {
+                versions.advance(idsByType);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.abn.recipeman.application.service.version;
+
+import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.domain.model.entity.Ingredient;
+import com.abn.recipeman.domain.model.entity.Recipe;
+import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Resident registry of the version of every entity and of every entity collection, answering whether a representation
+ * may have changed without touching the database.
+ * <p>
+ * A version is a stamp of the last committed write: microseconds since the epoch, forced to grow by at least one with
+ * every write, so it doubles as the last-modified time. Versions of single entities are kept per bucket of ids, a
+ * write advancing all the ids of its bucket: a few needless misses in exchange for a fixed, small footprint. Every
+ * version starts at the boot stamp, since writes before it are not known. Versions are advanced by
+ * {@link EntityVersionEventListener} once a transaction has committed, so a version never runs ahead of what the
+ * database returns.
+ * <p>
+ * Only the writes of this instance are seen, like the in-memory indexes of the recipes.
+ */
+@Component
+public class EntityVersions {
+
+    private static final int BUCKETS = 1 << 14;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final String instance = Integer.toHexString(new SecureRandom().nextInt());
+
+    private final Map<Class<?>, Versions> versionsByType = new HashMap<>();
+
+    public EntityVersions() {
+        long boot = nextStamp();
+        for (Class<?> type : new Class<?>[]{Recipe.class, Ingredient.class, Attribute.class, RecipeIngredient.class}) {
+            versionsByType.put(type, new Versions(boot));
+        }
+    }
+
+    /**
+     * @return a random id of this instance, telling its versions apart from those of another instance or run.
+     */
+    public String instance() {
+        return instance;
+    }
+
+    /**
+     * @param type the entity type.
+     * @return {@code true} if the versions of the given entity type are kept.
+     */
+    public boolean isVersioned(Class<?> type) {
+        return versionsByType.containsKey(type);
+    }
+
+    /**
+     * Get the version of a single entity, whether it exists or not.
+     *
+     * @param type the entity type.
+     * @param id   the entity id.
+     * @return the version.
+     */
+    public long version(Class<?> type, long id) {
+        return versions(type).items.get(bucket(id));
+    }
+
+    /**
+     * Get the version of all the entities of a type, advanced by the write of any of them.
+     *
+     * @param type the entity type.
+     * @return the version.
+     */
+    public long version(Class<?> type) {
+        return versions(type).collection.get();
+    }
+
+    /**
+     * Get the version of the given entities, the greatest of their versions.
+     *
+     * @param idsByType the ids of the entities, by entity type.
+     * @return the version, {@code 0} if there are none.
+     */
+    public long version(Map<Class<?>, ? extends Collection<Long>> idsByType) {
+        return version(idsByType, Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the version of the given entities, the greatest of their versions up to a ceiling.
+     * <p>
+     * Versions come from one clock and are advanced once their write has committed, so whatever is loaded after a
+     * version was read holds every write up to it. With the greatest version of their types, read before loading a
+     * representation, as ceiling, this is a version the representation holds all the writes of; if one of the
+     * entities was written while it was loaded, the version stays below the current one for good.
+     *
+     * @param idsByType the ids of the entities, by entity type.
+     * @param ceiling   the greatest version to take into account.
+     * @return the version, {@code 0} if there are none up to the ceiling.
+     */
+    public long version(Map<Class<?>, ? extends Collection<Long>> idsByType, long ceiling) {
+        long version = 0;
+        for (Map.Entry<Class<?>, ? extends Collection<Long>> entry : idsByType.entrySet()) {
+            Versions versions = versions(entry.getKey());
+            for (Long id : entry.getValue()) {
+                long candidate = versions.items.get(bucket(id));
+                if (candidate <= ceiling) {
+                    version = Math.max(version, candidate);
+                }
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Advance the versions of the given entities and of their collections.
+     *
+     * @param idsByType the ids of the written entities, by entity type.
+     */
+    public void advance(Map<Class<?>, ? extends Collection<Long>> idsByType) {
+        long stamp = nextStamp();
+        idsByType.forEach((type, ids) -> {
+            Versions versions = versions(type);
+            for (Long id : ids) {
+                versions.items.accumulateAndGet(bucket(id), stamp, Math::max);
+            }
+            versions.collection.accumulateAndGet(stamp, Math::max);
+        });
+    }
+
+    /**
+     * Get the last-modified time of a version.
+     *
+     * @param version the version.
+     * @return the time in milliseconds since the epoch.
+     */
+    public static long lastModified(long version) {
+        return TimeUnit.MICROSECONDS.toMillis(version);
+    }
+
+    private Versions versions(Class<?> type) {
+        Versions versions = versionsByType.get(type);
+        if (versions == null) {
+            throw new IllegalArgumentException("No versions are kept for " + type.getName());
+        }
+        return versions;
+    }
+
+    private long nextStamp() {
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        return clock.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+    }
+
+    private static int bucket(long id) {
+        return Long.hashCode(id) & (BUCKETS - 1);
+    }
+
+    private static final class Versions {
+
+        private final AtomicLongArray items = new AtomicLongArray(BUCKETS);
+
+        private final AtomicLong collection;
+
+        private Versions(long boot) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                items.set(bucket, boot);
+            }
+            this.collection = new AtomicLong(boot);
+        }
+    }
+}
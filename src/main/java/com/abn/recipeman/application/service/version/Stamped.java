@@ -0,0 +1,33 @@
+package com.abn.recipeman.application.service.version;
+
+/**
+ * A value along with the {@link EntityVersions} stamp read before it was, the one to tag it with: a value read
+ * concurrently with a write may be stale for the stamps read after it.
+ *
+ * @param <T> the type of the value.
+ */
+public final class Stamped<T> {
+
+    private final long stamp;
+
+    private final T value;
+
+    public Stamped(long stamp, T value) {
+        this.stamp = stamp;
+        this.value = value;
+    }
+
+    /**
+     * @return the stamp read before the value was.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * @return the value.
+     */
+    public T getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,28 @@
+package com.abn.recipeman.domain.model;
+
+/**
+ * Utility class for the {@code toString()} of the entities and their DTOs.
+ */
+public final class ToStringUtil {
+
+    /**
+     * Characters of a long text kept by {@code toString()}, instructions can be pages long.
+     */
+    private static final int ABBREVIATED_LENGTH = 64;
+
+    private ToStringUtil() {
+    }
+
+    /**
+     * Abbreviate a long text, keeping its first characters and its length.
+     *
+     * @param text the text, may be {@code null}.
+     * @return the text, abbreviated if longer than {@value #ABBREVIATED_LENGTH} characters.
+     */
+    public static String abbreviate(String text) {
+        if (text == null || text.length() <= ABBREVIATED_LENGTH) {
+            return text;
+        }
+        return text.substring(0, ABBREVIATED_LENGTH) + "...(" + text.length() + " chars)";
+    }
+}
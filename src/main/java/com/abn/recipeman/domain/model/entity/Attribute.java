@@ -4,6 +4,7 @@ import com.abn.recipeman.application.service.RecipeAttributeType;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -27,6 +28,11 @@ public class Attribute implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @NotNull
     @Column(name = "recipeAttributeType", nullable = false)
     @Enumerated(EnumType.STRING)
@@ -51,6 +57,14 @@ public class Attribute implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public RecipeAttributeType getRecipeAttributeType() {
         return this.recipeAttributeType;
     }
@@ -3,6 +3,7 @@ package com.abn.recipeman.domain.model.entity;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -26,6 +27,11 @@ public class Ingredient implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @NotNull
     @Column(name = "name", nullable = false)
     private String name;
@@ -48,6 +54,14 @@ public class Ingredient implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -1,8 +1,10 @@
 package com.abn.recipeman.domain.model.entity;
 
+import com.abn.recipeman.domain.model.ToStringUtil;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
@@ -27,6 +29,11 @@ public class Recipe implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @NotNull
     @Column(name = "name", nullable = false)
     private String name;
@@ -68,6 +75,14 @@ public class Recipe implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -187,7 +202,7 @@ public class Recipe implements Serializable {
                 "id=" + getId() +
                 ", name='" + getName() + "'" +
                 ", servingNumber=" + getServingNumber() +
-                ", instruction='" + getInstruction() + "'" +
+                ", instruction='" + ToStringUtil.abbreviate(getInstruction()) + "'" +
                 "}";
     }
 }
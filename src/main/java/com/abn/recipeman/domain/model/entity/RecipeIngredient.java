@@ -3,6 +3,7 @@ package com.abn.recipeman.domain.model.entity;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -24,6 +25,11 @@ public class RecipeIngredient implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @NotNull
     @Column(name = "amount", nullable = false)
     private Integer amount;
@@ -49,6 +55,14 @@ public class RecipeIngredient implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Integer getAmount() {
         return this.amount;
     }
@@ -1,15 +1,20 @@
 package com.abn.recipeman.persistence.repository;
 
+import com.abn.recipeman.application.model.dto.AttributeDTO;
 import com.abn.recipeman.application.service.RecipeAttributeType;
 import com.abn.recipeman.domain.model.entity.Attribute;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Set;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 /**
  * Spring Data SQL repository for the Attribute entity.
  */
@@ -17,6 +22,10 @@ import java.util.Set;
 public interface AttributeRepository extends AttributeRepositoryWithBagRelationships, JpaRepository<Attribute, Long> {
     List<Attribute> findAllByRecipeAttributeType(String RecipeAttributeType);
 
+    @Query("select new com.abn.recipeman.application.model.dto.AttributeDTO(att.id, att.version, att.recipeAttributeType) from Attribute att")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<AttributeDTO> findAllAsDto();
+
     @Query("select distinct attribute from Attribute attribute left join fetch attribute.recipes where attribute.recipeAttributeType in :attributes")
     List<Attribute> findAllByRecipeAttributeTypeIn(@Param("attributes") Set<RecipeAttributeType> names);
 }
@@ -1,13 +1,45 @@
 package com.abn.recipeman.persistence.repository;
 
+import com.abn.recipeman.application.model.dto.IngredientDTO;
 import com.abn.recipeman.domain.model.entity.Ingredient;
+import com.abn.recipeman.persistence.repository.projection.IngredientName;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 /**
  * Spring Data SQL repository for the Ingredient entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
+public interface IngredientRepository extends RepositoryWithMultiLoad, JpaRepository<Ingredient, Long> {
+
+    /**
+     * Find the ingredients of the given ids through the second-level cache, in the order of the ids, {@code null} for the
+     * ids that do not exist.
+     */
+    default List<Ingredient> findAllByIdInOrder(List<Long> ids) {
+        return multiLoad(Ingredient.class, ids);
+    }
+
+    @Query("select new com.abn.recipeman.application.model.dto.IngredientDTO(ing.id, ing.version, ing.name) from Ingredient ing")
+    List<IngredientDTO> findAllAsDto();
+
+    @Query("select ing.id as ingredientId, ing.name as ingredientName from Ingredient ing where ing.id in :ids")
+    List<IngredientName> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select ing.id as ingredientId, ing.name as ingredientName from Ingredient ing")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<IngredientName> streamAllNames();
+
+    List<Ingredient> findAllByNameIn(Collection<String> names);
 }
@@ -1,24 +1,54 @@
 package com.abn.recipeman.persistence.repository;
 
+import com.abn.recipeman.application.model.dto.RecipeIngredientDTO;
 import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import com.abn.recipeman.persistence.repository.projection.RecipeIngredientLink;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * Spring Data SQL repository for the RecipeIngredient entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredient, Long> {
+public interface RecipeIngredientRepository extends RepositoryWithMultiLoad, JpaRepository<RecipeIngredient, Long> {
+
+    /**
+     * Find the recipeIngredients of the given ids through the second-level cache, in the order of the ids, {@code null} for the
+     * ids that do not exist.
+     */
+    default List<RecipeIngredient> findAllByIdInOrder(List<Long> ids) {
+        return multiLoad(RecipeIngredient.class, ids);
+    }
+
+    @Query("select new com.abn.recipeman.application.model.dto.RecipeIngredientDTO(ring.id, ring.version, ring.amount, ring.ingredient.id, ring.recipe.id) from RecipeIngredient ring")
+    List<RecipeIngredientDTO> findAllAsDto();
 
-    @Query("select ring from RecipeIngredient ring inner join ring.ingredient ing where ing.name in ( :ingredientNames ) ")
-    List<RecipeIngredient> findAllByIngredientNames(@Param("ingredientNames") Set<String> includeIngredients);
+    @Query("select ring.recipe.id from RecipeIngredient ring inner join ring.ingredient ing where ing.name in :ingredientNames " +
+            "group by ring.recipe.id having count(distinct ing.name) = :ingredientCount")
+    List<Long> findRecipeIdsHavingAllIngredients(@Param("ingredientNames") Collection<String> ingredientNames, @Param("ingredientCount") long ingredientCount);
+
+    @Query("select new com.abn.recipeman.application.model.dto.RecipeIngredientDTO(ring.id, ring.version, ring.amount, ing.id, ing.version, ing.name) " +
+            "from RecipeIngredient ring left join ring.ingredient ing where ring.recipe.id = :recipeId order by ring.id")
+    List<RecipeIngredientDTO> findWithIngredientByRecipeIdAsDto(@Param("recipeId") Long recipeId);
 
     @Query("select ring from RecipeIngredient ring where ring.recipe.id = :recipeId ")
     List<RecipeIngredient> findByRecipeId(@Param("recipeId") Long id);
+
+    @Query("select ring.recipe.id as recipeId, ing.id as ingredientId, ing.name as ingredientName from RecipeIngredient ring inner join ring.ingredient ing where ring.recipe is not null")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<RecipeIngredientLink> streamAllIngredientLinks();
+
+    @Query("select ring.recipe.id as recipeId, ing.id as ingredientId, ing.name as ingredientName from RecipeIngredient ring inner join ring.ingredient ing where ring.recipe.id in :recipeIds")
+    List<RecipeIngredientLink> findIngredientLinksByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
 }
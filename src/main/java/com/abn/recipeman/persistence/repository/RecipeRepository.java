@@ -1,54 +1,110 @@
 package com.abn.recipeman.persistence.repository;
 
-import com.abn.recipeman.domain.model.entity.Attribute;
+import com.abn.recipeman.application.model.dto.RecipeDTO;
+import com.abn.recipeman.application.service.RecipeAttributeType;
 import com.abn.recipeman.domain.model.entity.Recipe;
+import com.abn.recipeman.persistence.repository.projection.RecipeAttributeId;
+import com.abn.recipeman.persistence.repository.projection.RecipeAttributeLink;
+import com.abn.recipeman.persistence.repository.projection.RecipeInstruction;
+import com.abn.recipeman.persistence.repository.projection.RecipeServingNumber;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import javax.persistence.QueryHint;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
 
 /**
  * Spring Data SQL repository for the Recipe entity.
  */
 @Repository
-public interface RecipeRepository extends RecipeRepositoryWithBagRelationships, JpaRepository<Recipe, Long> {
+public interface RecipeRepository extends RecipeRepositoryWithBagRelationships, RecipeRepositoryWithInquiry, RepositoryWithMultiLoad,
+        JpaRepository<Recipe, Long> {
+    /**
+     * Find a recipe and its attributes through the second-level cache, so that only cache misses reach the database.
+     */
     default Optional<Recipe> findOneWithEagerRelationships(Long id) {
         return this.fetchBagRelationships(this.findById(id));
     }
 
-    default List<Recipe> findAllWithEagerRelationships() {
-        return this.fetchBagRelationships(this.findAll());
+    /**
+     * Find the recipes of the given ids and their attributes through the second-level cache, in the order of the ids,
+     * {@code null} for the ids that do not exist.
+     */
+    default List<Recipe> findAllWithEagerRelationshipsByIdInOrder(List<Long> ids) {
+        List<Recipe> recipes = multiLoad(Recipe.class, ids);
+        this.fetchBagRelationships(recipes.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+        return recipes;
     }
 
-    List<Recipe> findAllByAttributesIn(Set<Attribute> attributes);
+    @Query("select distinct recipe from Recipe recipe left join fetch recipe.attributes")
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<Recipe> findAllWithEagerRelationships();
 
     default Page<Recipe> findAllWithEagerRelationships(Pageable pageable) {
         return this.fetchBagRelationships(this.findAll(pageable));
     }
 
-    @Query("select rec from Recipe rec where " +
-            " ( :includeRecIds IS NOT NULL OR :servingNumber IS NOT NULL OR  :inInstruction IS NOT NULL ) " +
-            " and ( :includeRecIds is NULL OR rec.id IN :includeRecIds ) " +
-            " and (:servingNumber is NULL OR rec.servingNumber = :servingNumber) " +
-            " and (:inInstruction is NULL OR rec.instruction like concat('%', :inInstruction,'%') ) "
-    )
-    Page<Recipe> inquiryAllByIds(@Param("includeRecIds") Set<Long> includeRecIds,
-                                 @Param("servingNumber") Integer servingNumber,
-                                 @Param("inInstruction") String instruction,
-                                 Pageable pageable);
-
-
-    default Page<Recipe> inquiryAllByIdsWithEagerRelationships(@Param("includeRecIds") Set<Long> includeRecIds,
-                                                               @Param("servingNumber") Integer servingNumber,
-                                                               @Param("instruction") String instruction,
-                                                               Pageable pageable) {
-        return this.fetchBagRelationships(this.inquiryAllByIds(includeRecIds, servingNumber, instruction, pageable));
-    }
+    /**
+     * Get the ids following {@code afterId}, in id order, limited by the size of {@code pageable}.
+     */
+    @Query("select rec.id from Recipe rec where rec.id > :afterId order by rec.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select new com.abn.recipeman.application.model.dto.RecipeDTO(rec.id, rec.version, rec.name, rec.servingNumber, rec.instruction) from Recipe rec")
+    List<RecipeDTO> findAllAsDto();
+
+    @Query("select rec.id as recipeId, att.id as attributeId from Recipe rec join rec.attributes att")
+    List<RecipeAttributeId> findAllAttributeIds();
+
+    @Query("select rec.name from Recipe rec where rec.name in :names")
+    List<String> findNamesByNameIn(@Param("names") Collection<String> names);
+
+    @Query("select new com.abn.recipeman.application.model.dto.RecipeDTO(rec.id, rec.version, rec.name, rec.servingNumber, rec.instruction) from Recipe rec order by rec.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+    Stream<RecipeDTO> streamAllAsDto();
+
+    @Query("select rec.id as recipeId, att.id as attributeId from Recipe rec join rec.attributes att order by rec.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<RecipeAttributeId> streamAllAttributeIds();
+
+    @Query("select rec.id from Recipe rec inner join rec.attributes att where att.recipeAttributeType in :attributes " +
+            "group by rec.id having count(distinct att.recipeAttributeType) = :attributeCount")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Long> findIdsHavingAllAttributes(@Param("attributes") Collection<RecipeAttributeType> attributes, @Param("attributeCount") long attributeCount);
+
+    @Query("select rec.id as recipeId, rec.servingNumber as servingNumber from Recipe rec")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<RecipeServingNumber> streamAllServingNumbers();
+
+    @Query("select rec.id as recipeId, rec.servingNumber as servingNumber from Recipe rec where rec.id in :ids")
+    List<RecipeServingNumber> findServingNumbersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select rec.id as recipeId, rec.instruction as instruction from Recipe rec")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+    Stream<RecipeInstruction> streamAllInstructions();
+
+    @Query("select rec.id as recipeId, rec.instruction as instruction from Recipe rec where rec.id in :ids")
+    List<RecipeInstruction> findInstructionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct rec.id from Recipe rec join rec.attributes att where att.id in :attributeIds")
+    List<Long> findIdsByAttributeIdIn(@Param("attributeIds") Collection<Long> attributeIds);
+
+    @Query("select rec.id as recipeId, att.recipeAttributeType as attributeType from Recipe rec join rec.attributes att")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<RecipeAttributeLink> streamAllAttributeLinks();
+
+    @Query("select rec.id as recipeId, att.recipeAttributeType as attributeType from Recipe rec join rec.attributes att where rec.id in :ids")
+    List<RecipeAttributeLink> findAttributeLinksByRecipeIdIn(@Param("ids") Collection<Long> ids);
 
 }
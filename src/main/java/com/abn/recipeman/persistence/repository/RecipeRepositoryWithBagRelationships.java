@@ -12,4 +12,10 @@ public interface RecipeRepositoryWithBagRelationships {
     List<Recipe> fetchBagRelationships(List<Recipe> recipes);
 
     Page<Recipe> fetchBagRelationships(Page<Recipe> recipes);
+
+    /**
+     * Load the recipes with the given ids and their attributes, keeping the order of {@code ids}. Unknown ids are
+     * skipped.
+     */
+    List<Recipe> findAllWithEagerRelationshipsByIdIn(List<Long> ids);
 }
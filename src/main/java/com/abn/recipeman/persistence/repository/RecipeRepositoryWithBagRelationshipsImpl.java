@@ -1,24 +1,35 @@
 package com.abn.recipeman.persistence.repository;
 
+import com.abn.recipeman.application.config.ApplicationProperties;
 import com.abn.recipeman.domain.model.entity.Recipe;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Utility repository to load bag relationships based on https://vladmihalcea.com/hibernate-multiplebagfetchexception/
+ * <p>
+ * Recipes that are already loaded only get their attributes initialized: Hibernate batch fetching loads the
+ * attributes of {@code recipeman.persistence.fetch-batch-size} recipes per statement, keyed by recipe id, without
+ * selecting the recipes again. Recipes loaded by id are fetched together with their attributes, in chunks of the same
+ * size.
  */
 public class RecipeRepositoryWithBagRelationshipsImpl implements RecipeRepositoryWithBagRelationships {
 
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final ApplicationProperties applicationProperties;
+
+    public RecipeRepositoryWithBagRelationshipsImpl(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
     @Override
     public Optional<Recipe> fetchBagRelationships(Optional<Recipe> recipe) {
         return recipe.map(this::fetchAttributes);
@@ -34,22 +45,39 @@ public class RecipeRepositoryWithBagRelationshipsImpl implements RecipeRepositor
         return Optional.of(recipes).map(this::fetchAttributes).orElse(Collections.emptyList());
     }
 
+    @Override
+    public List<Recipe> findAllWithEagerRelationshipsByIdIn(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int batchSize = applicationProperties.getPersistence().getFetchBatchSize();
+        Map<Long, Recipe> recipes = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            entityManager
+                    .createQuery("select distinct recipe from Recipe recipe left join fetch recipe.attributes where recipe.id in :ids", Recipe.class)
+                    .setParameter("ids", ids.subList(i, Math.min(ids.size(), i + batchSize)))
+                    .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
+                    .getResultList()
+                    .forEach(recipe -> recipes.put(recipe.getId(), recipe));
+        }
+        List<Recipe> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Recipe recipe = recipes.get(id);
+            if (recipe != null) {
+                result.add(recipe);
+            }
+        }
+        return result;
+    }
+
     Recipe fetchAttributes(Recipe result) {
-        return entityManager
-                .createQuery("select recipe from Recipe recipe left join fetch recipe.attributes where recipe is :recipe", Recipe.class)
-                .setParameter("recipe", result)
-                .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
-                .getSingleResult();
+        Hibernate.initialize(result.getAttributes());
+        return result;
     }
 
     List<Recipe> fetchAttributes(List<Recipe> recipes) {
-        return entityManager
-                .createQuery(
-                        "select distinct recipe from Recipe recipe left join fetch recipe.attributes where recipe in :recipes",
-                        Recipe.class
-                )
-                .setParameter("recipes", recipes)
-                .setHint(QueryHints.PASS_DISTINCT_THROUGH, false)
-                .getResultList();
+        // the first initialization loads the attributes of the following recipes too, one batch per statement
+        recipes.forEach(recipe -> Hibernate.initialize(recipe.getAttributes()));
+        return recipes;
     }
 }
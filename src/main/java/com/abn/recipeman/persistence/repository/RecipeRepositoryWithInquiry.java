@@ -0,0 +1,22 @@
+package com.abn.recipeman.persistence.repository;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RecipeRepositoryWithInquiry {
+    /**
+     * Get one page of the ids of the recipes matching all the given predicates. A {@code null} or empty argument
+     * means the predicate is not applied.
+     *
+     * @param recipeIds          restrict the result to these recipes.
+     * @param excludeIngredients drop the recipes using any of these ingredients.
+     * @param servingNumber      the serving number of the recipes.
+     * @param instruction        a text the instruction of the recipes contains.
+     * @param afterId            keep only the recipes with a greater id, for keyset pagination.
+     * @param pageable           the pagination information, ordered by id unless sorted otherwise.
+     * @return the ids of the requested page.
+     */
+    List<Long> inquiryRecipeIds(Collection<Long> recipeIds, Collection<String> excludeIngredients, Integer servingNumber, String instruction, Long afterId, Pageable pageable);
+}
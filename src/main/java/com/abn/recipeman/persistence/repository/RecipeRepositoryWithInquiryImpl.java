@@ -0,0 +1,58 @@
+package com.abn.recipeman.persistence.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the recipe inquiry query with only the predicates that are actually requested, so the database never has
+ * to evaluate {@code :param is null or ...} branches.
+ */
+public class RecipeRepositoryWithInquiryImpl implements RecipeRepositoryWithInquiry {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> inquiryRecipeIds(Collection<Long> recipeIds, Collection<String> excludeIngredients, Integer servingNumber, String instruction, Long afterId, Pageable pageable) {
+        StringBuilder jpql = new StringBuilder("select rec.id from Recipe rec where 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+        if (recipeIds != null) {
+            jpql.append(" and rec.id in :recipeIds");
+            parameters.put("recipeIds", recipeIds);
+        }
+        if (excludeIngredients != null && !excludeIngredients.isEmpty()) {
+            jpql.append(" and not exists (select ring.id from RecipeIngredient ring inner join ring.ingredient ing" +
+                    " where ring.recipe = rec and ing.name in :excludeIngredients)");
+            parameters.put("excludeIngredients", excludeIngredients);
+        }
+        if (servingNumber != null) {
+            jpql.append(" and rec.servingNumber = :servingNumber");
+            parameters.put("servingNumber", servingNumber);
+        }
+        if (instruction != null) {
+            jpql.append(" and rec.instruction like concat('%', :instruction, '%')");
+            parameters.put("instruction", instruction);
+        }
+        if (afterId != null) {
+            jpql.append(" and rec.id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        TypedQuery<Long> query = entityManager.createQuery(QueryUtils.applySorting(jpql.toString(), sort, "rec"), Long.class);
+        parameters.forEach(query::setParameter);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,19 @@
+package com.abn.recipeman.persistence.repository;
+
+import java.util.List;
+
+/**
+ * Repository fragment loading many entities by id through the caches first.
+ */
+public interface RepositoryWithMultiLoad {
+
+    /**
+     * Load the entities of the given ids from the session, then from the second-level cache, and only the misses from
+     * the database, {@code recipeman.persistence.fetch-batch-size} ids per statement.
+     *
+     * @param type the entity type.
+     * @param ids  the ids to load.
+     * @return the entity of every id in order, {@code null} for the ids that do not exist.
+     */
+    <T> List<T> multiLoad(Class<T> type, List<Long> ids);
+}
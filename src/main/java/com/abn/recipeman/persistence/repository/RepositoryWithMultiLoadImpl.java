@@ -0,0 +1,40 @@
+package com.abn.recipeman.persistence.repository;
+
+import com.abn.recipeman.application.config.ApplicationProperties;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uses the multi-load of Hibernate, which unlike a {@code where id in (...)} query skips the ids already in the session
+ * or in the second-level cache, and puts what it reads in the second-level cache.
+ */
+public class RepositoryWithMultiLoadImpl implements RepositoryWithMultiLoad {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ApplicationProperties applicationProperties;
+
+    public RepositoryWithMultiLoadImpl(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Override
+    public <T> List<T> multiLoad(Class<T> type, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(type)
+                .with(CacheMode.NORMAL)
+                .withBatchSize(applicationProperties.getPersistence().getFetchBatchSize())
+                .enableSessionCheck(true)
+                .enableOrderedReturn(true)
+                .multiLoad(ids);
+    }
+}
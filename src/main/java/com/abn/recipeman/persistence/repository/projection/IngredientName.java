@@ -0,0 +1,10 @@
+package com.abn.recipeman.persistence.repository.projection;
+
+/**
+ * Projection of an {@link com.abn.recipeman.domain.model.entity.Ingredient} id and its name.
+ */
+public interface IngredientName {
+    Long getIngredientId();
+
+    String getIngredientName();
+}
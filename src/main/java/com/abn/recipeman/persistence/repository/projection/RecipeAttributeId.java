@@ -0,0 +1,10 @@
+package com.abn.recipeman.persistence.repository.projection;
+
+/**
+ * Projection of a {@link com.abn.recipeman.domain.model.entity.Recipe} id and the id of one of its attributes.
+ */
+public interface RecipeAttributeId {
+    Long getRecipeId();
+
+    Long getAttributeId();
+}
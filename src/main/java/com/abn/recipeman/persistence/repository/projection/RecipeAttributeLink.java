@@ -0,0 +1,12 @@
+package com.abn.recipeman.persistence.repository.projection;
+
+import com.abn.recipeman.application.service.RecipeAttributeType;
+
+/**
+ * Projection of a row of the {@code rel_recipe__attribute} join table.
+ */
+public interface RecipeAttributeLink {
+    Long getRecipeId();
+
+    RecipeAttributeType getAttributeType();
+}
@@ -0,0 +1,12 @@
+package com.abn.recipeman.persistence.repository.projection;
+
+/**
+ * Projection of a {@link com.abn.recipeman.domain.model.entity.RecipeIngredient} as the pair of ids it links.
+ */
+public interface RecipeIngredientLink {
+    Long getRecipeId();
+
+    Long getIngredientId();
+
+    String getIngredientName();
+}
@@ -0,0 +1,10 @@
+package com.abn.recipeman.persistence.repository.projection;
+
+/**
+ * Projection of a {@link com.abn.recipeman.domain.model.entity.Recipe} id and its instruction.
+ */
+public interface RecipeInstruction {
+    Long getRecipeId();
+
+    String getInstruction();
+}
@@ -0,0 +1,10 @@
+package com.abn.recipeman.persistence.repository.projection;
+
+/**
+ * Projection of a {@link com.abn.recipeman.domain.model.entity.Recipe} id and its serving number.
+ */
+public interface RecipeServingNumber {
+    Long getRecipeId();
+
+    Integer getServingNumber();
+}
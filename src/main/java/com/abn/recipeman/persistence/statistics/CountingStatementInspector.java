@@ -0,0 +1,17 @@
+package com.abn.recipeman.persistence.statistics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every statement Hibernate prepares in the current {@link SqlStatementCounter.Scope}, leaving it unchanged.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter.statementPrepared(sql);
+        return sql;
+    }
+}
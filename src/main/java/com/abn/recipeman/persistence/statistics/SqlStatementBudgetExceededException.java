@@ -0,0 +1,13 @@
+package com.abn.recipeman.persistence.statistics;
+
+/**
+ * Thrown instead of preparing a statement that would take a {@link SqlStatementCounter.Scope} over its budget.
+ */
+public class SqlStatementBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SqlStatementBudgetExceededException(String scope, int budget) {
+        super(scope + " needs more than its budget of " + budget + " SQL statements");
+    }
+}
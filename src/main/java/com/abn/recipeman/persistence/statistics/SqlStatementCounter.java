@@ -0,0 +1,182 @@
+package com.abn.recipeman.persistence.statistics;
+
+import java.util.*;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, and the time the database takes to execute
+ * them, between the opening and the closing of a {@link Scope}.
+ * <p>
+ * Scopes nest: what a scope counts is counted by its enclosing scopes too, and an enclosing scope keeps the scopes
+ * closed inside it. Statements issued outside of any scope, or through plain JDBC, are not counted. The statements of a
+ * task run on another thread are counted in a scope of that thread, which the thread waiting for the task
+ * {@link #addToCurrent(Scope) adds} to its own.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Start counting the statements of the current thread, until the returned scope is closed.
+     *
+     * @param name what the scope counts, for example the request it serves.
+     * @return the new scope.
+     */
+    public static Scope open(String name) {
+        Scope scope = new Scope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return the innermost open scope of the current thread, if any.
+     */
+    public static Optional<Scope> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Count the statements of a scope closed on another thread, such as a task the current thread waited for, in the
+     * innermost open scope of the current thread and its enclosing scopes, as if they had been prepared here.
+     *
+     * @param closed the scope, closed on the thread that opened it.
+     * @throws SqlStatementBudgetExceededException if the innermost scope goes over its failing budget.
+     */
+    public static void addToCurrent(Scope closed) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        for (Scope counted = scope; counted != null; counted = counted.parent) {
+            counted.statements += closed.statements;
+            counted.executionNanos += closed.executionNanos;
+            for (Map.Entry<String, Integer> select : closed.selectCounts.entrySet()) {
+                counted.selectCounts.merge(select.getKey(), select.getValue(), Integer::sum);
+            }
+        }
+        scope.closedScopes.add(closed);
+        if (scope.failAbove >= 0 && scope.statements > scope.failAbove) {
+            throw new SqlStatementBudgetExceededException(scope.name, scope.failAbove);
+        }
+    }
+
+    static void statementPrepared(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        // batched writes prepare the same statement once per batch, only repeated reads hint at N+1 loads
+        boolean read = sql.regionMatches(true, 0, "select", 0, 6);
+        for (Scope counted = scope; counted != null; counted = counted.parent) {
+            counted.statements++;
+            if (read) {
+                counted.selectCounts.merge(sql, 1, Integer::sum);
+            }
+        }
+        if (scope.failAbove >= 0 && scope.statements > scope.failAbove) {
+            throw new SqlStatementBudgetExceededException(scope.name, scope.failAbove);
+        }
+    }
+
+    static void statementExecuted(long nanos) {
+        for (Scope counted = CURRENT.get(); counted != null; counted = counted.parent) {
+            counted.executionNanos += nanos;
+        }
+    }
+
+    /**
+     * The statements counted from its opening on the thread that opened it.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final String name;
+
+        private final Scope parent;
+
+        private final Map<String, Integer> selectCounts = new HashMap<>();
+
+        private final List<Scope> closedScopes = new ArrayList<>();
+
+        private int statements;
+
+        private long executionNanos;
+
+        private int warnAbove = -1;
+
+        private int failAbove = -1;
+
+        private Scope(String name, Scope parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of statements prepared so far, a JDBC batch being one statement.
+         */
+        public int getStatements() {
+            return statements;
+        }
+
+        /**
+         * @return the time spent executing the statements so far, in nanoseconds, without reading their results.
+         */
+        public long getExecutionNanos() {
+            return executionNanos;
+        }
+
+        /**
+         * @return the most repeated select and how many times it was prepared, a sign of N+1 loading when above a few.
+         */
+        public Optional<Map.Entry<String, Integer>> getMostRepeatedSelect() {
+            return selectCounts.entrySet().stream().max(Map.Entry.comparingByValue());
+        }
+
+        /**
+         * @return the scopes opened and closed inside this one, in closing order.
+         */
+        public List<Scope> getClosedScopes() {
+            return Collections.unmodifiableList(closedScopes);
+        }
+
+        /**
+         * Set the number of statements of the scope, a negative number being no limit.
+         *
+         * @param warnAbove the statements above which the owner of the scope should warn, see {@link #isOverBudget()}.
+         * @param failAbove the statements above which the next statement fails with a {@link SqlStatementBudgetExceededException}.
+         */
+        public void budget(int warnAbove, int failAbove) {
+            this.warnAbove = warnAbove;
+            this.failAbove = failAbove;
+        }
+
+        public int getWarnAbove() {
+            return warnAbove;
+        }
+
+        /**
+         * @return whether more statements than the warning budget were prepared.
+         */
+        public boolean isOverBudget() {
+            return warnAbove >= 0 && statements > warnAbove;
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() != this) {
+                throw new IllegalStateException("Scope " + name + " is not the innermost scope of the current thread");
+            }
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+                parent.closedScopes.add(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.abn.recipeman.persistence.statistics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds the time the database takes to execute the statements and batches of a session to the current
+ * {@link SqlStatementCounter.Scope}. Hibernate creates one listener per session.
+ */
+public class StatementTimingSessionListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long executionStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        SqlStatementCounter.statementExecuted(System.nanoTime() - executionStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        SqlStatementCounter.statementExecuted(System.nanoTime() - executionStart);
+    }
+}
@@ -0,0 +1,23 @@
+package com.abn.recipeman;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test when one of the requests it performs issues more SQL statements than given, or when it performs none.
+ * Statements issued by the test itself, outside of a request, are not counted.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(MaxSqlStatementsPerRequestExtension.class)
+public @interface MaxSqlStatementsPerRequest {
+
+    /**
+     * @return the statements a request may issue.
+     */
+    int value();
+}
@@ -0,0 +1,38 @@
+package com.abn.recipeman;
+
+import com.abn.recipeman.persistence.statistics.SqlStatementCounter;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements of the requests a test performs on its own thread, see {@link MaxSqlStatementsPerRequest}.
+ */
+public class MaxSqlStatementsPerRequestExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(MaxSqlStatementsPerRequestExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatementCounter.open(context.getDisplayName()));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlStatementCounter.Scope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), SqlStatementCounter.Scope.class);
+        scope.close();
+        int maxStatements = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(), MaxSqlStatementsPerRequest.class).value();
+        List<SqlStatementCounter.Scope> requests = scope.getClosedScopes();
+        assertThat(requests).as("requests performed by %s", scope.getName()).isNotEmpty();
+        assertThat(requests.stream().filter(request -> request.getStatements() > maxStatements).collect(Collectors.toList()))
+                .as("requests issuing more than %d SQL statements", maxStatements)
+                .extracting(request -> request.getName() + ": " + request.getStatements())
+                .isEmpty();
+    }
+}
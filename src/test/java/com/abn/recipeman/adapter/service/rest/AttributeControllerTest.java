@@ -15,6 +15,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -46,6 +47,9 @@ class AttributeControllerTest {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private MockMvc restAttributeMockMvc;
 
@@ -156,6 +160,27 @@ class AttributeControllerTest {
                 .andExpect(jsonPath("$.recipeAttributeType").value(DEFAULT_NAME.name()));
     }
 
+    @Test
+    void getAttribute_read_again_is_served_from_the_second_level_cache() throws Exception {
+        // the second-level cache is only written once a transaction commits, so the attribute is committed
+        attributeRepository.saveAndFlush(attribute);
+        try {
+            entityManagerFactory.getCache().evict(Attribute.class, attribute.getId());
+
+            restAttributeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, attribute.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(SqlStatementBudgetFilter.STATEMENTS_HEADER, "1"));
+            restAttributeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, attribute.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipeAttributeType").value(DEFAULT_NAME.name()))
+                    .andExpect(header().string(SqlStatementBudgetFilter.STATEMENTS_HEADER, "0"));
+        } finally {
+            attributeRepository.deleteById(attribute.getId());
+        }
+    }
+
     @Test
     @Transactional
     void getNonExistingAttribute() throws Exception {
@@ -1,36 +1,68 @@
 package com.abn.recipeman.adapter.service.rest;
 
 import com.abn.recipeman.IntegrationTest;
+import com.abn.recipeman.MaxSqlStatementsPerRequest;
+import com.abn.recipeman.application.config.ApplicationProperties;
+import com.abn.recipeman.application.model.dto.AttributeDTO;
 import com.abn.recipeman.application.model.dto.FilterRecipeDto;
+import com.abn.recipeman.application.model.dto.FullRecipeDTO;
+import com.abn.recipeman.application.model.dto.IngredientDTO;
 import com.abn.recipeman.application.model.dto.RecipeDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportIngredientDTO;
+import com.abn.recipeman.application.model.dto.RecipeImportResultDTO;
 import com.abn.recipeman.application.model.dto.RecipeIngredientDTO;
 import com.abn.recipeman.application.model.dto.mapper.RecipeMapper;
 import com.abn.recipeman.application.service.RecipeAttributeType;
 import com.abn.recipeman.application.service.RecipeIngredientService;
 import com.abn.recipeman.application.service.RecipeService;
+import com.abn.recipeman.application.service.aggregate.FullRecipeCache;
+import com.abn.recipeman.application.service.inquiry.RecipeInquiryCache;
+import com.abn.recipeman.application.service.json.RecipeJsonCache;
+import com.abn.recipeman.application.service.json.SerializedRecipe;
+import com.abn.recipeman.application.service.version.EntityVersions;
+import com.abn.recipeman.application.service.version.Stamped;
 import com.abn.recipeman.domain.model.entity.Attribute;
 import com.abn.recipeman.domain.model.entity.Ingredient;
 import com.abn.recipeman.domain.model.entity.Recipe;
 import com.abn.recipeman.domain.model.entity.RecipeIngredient;
+import com.abn.recipeman.persistence.repository.AttributeRepository;
+import com.abn.recipeman.persistence.repository.IngredientRepository;
 import com.abn.recipeman.persistence.repository.RecipeRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.cache.Cache;
+import javax.cache.CacheManager;
 import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -116,6 +148,33 @@ class RecipesControllerTest {
     @Autowired
     private MockMvc restRecipeMockMvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeJsonCache recipeJsonCache;
+
+    @Autowired
+    private FullRecipeCache fullRecipeCache;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private EntityVersions entityVersions;
+
+    @Autowired
+    private AttributeRepository attributeRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     private Recipe recipe;
 
     /**
@@ -236,6 +295,67 @@ class RecipesControllerTest {
                 .andExpect(jsonPath("$.[*].instruction").value(hasItem(DEFAULT_INSTRUCTION.toString())));
     }
 
+    @Test
+    void exportRecipes() throws Exception {
+        // the export is written on an async thread, it only sees committed recipes
+        recipeRepository.saveAndFlush(recipe);
+        try {
+            MvcResult result = restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL + "/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = restRecipeMockMvc
+                    .perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            List<RecipeDTO> exported = new ArrayList<>();
+            for (String line : body.split("\n")) {
+                exported.add(TestUtil.serialize(line, new TypeReference<RecipeDTO>() {
+                }));
+            }
+            assertThat(exported).extracting(RecipeDTO::getId).isSorted().contains(recipe.getId());
+            assertThat(exported).filteredOn(dto -> dto.getId().equals(recipe.getId()))
+                    .extracting(RecipeDTO::getName).containsExactly(DEFAULT_NAME);
+        } finally {
+            recipeRepository.deleteById(recipe.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void importRecipes_reports_outcome_per_recipe() throws Exception {
+        recipeRepository.saveAndFlush(recipe);
+
+        RecipeImportIngredientDTO salt = new RecipeImportIngredientDTO();
+        salt.setName("bulk-salt");
+        salt.setAmount(2);
+        RecipeImportDTO created = recipeImport("bulk-soup");
+        created.setAttributes(Collections.singleton(RecipeAttributeType.VEGETARIAN));
+        created.setIngredients(Collections.singletonList(salt));
+        RecipeImportDTO withoutName = recipeImport(null);
+        RecipeImportDTO takenName = recipeImport(DEFAULT_NAME);
+        RecipeImportDTO repeatedName = recipeImport("bulk-soup");
+
+        MvcResult mvcResult = restRecipeMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(List.of(created, withoutName, takenName, repeatedName))))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<RecipeImportResultDTO> results = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeImportResultDTO>>() {
+        });
+        assertThat(results).extracting(RecipeImportResultDTO::getStatus).containsExactly(
+                RecipeImportResultDTO.Status.CREATED, RecipeImportResultDTO.Status.REJECTED,
+                RecipeImportResultDTO.Status.REJECTED, RecipeImportResultDTO.Status.REJECTED);
+
+        Recipe imported = recipeRepository.findOneWithEagerRelationships(results.get(0).getId()).orElseThrow();
+        assertThat(imported.getName()).isEqualTo("bulk-soup");
+        assertThat(imported.getAttributes()).extracting(Attribute::getRecipeAttributeType).containsExactly(RecipeAttributeType.VEGETARIAN);
+        assertThat(recipeIngredientService.findByRecipeId(imported.getId()))
+                .extracting(RecipeIngredientDTO::getAmount).containsExactly(2);
+    }
+
     @SuppressWarnings({"unchecked"})
     void getAllRecipesWithEagerRelationshipsIsEnabled() throws Exception {
         when(recipeServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -271,6 +391,344 @@ class RecipesControllerTest {
                 .andExpect(jsonPath("$.instruction").value(DEFAULT_INSTRUCTION));
     }
 
+    @Test
+    void getRecipe_is_not_modified_until_written() throws Exception {
+        // versions advance once a write has committed, so the recipe is committed
+        recipeRepository.saveAndFlush(recipe);
+        try {
+            String etag = restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("Last-Modified"))
+                    .andReturn().getResponse().getHeader("ETag");
+            assertThat(etag).isNotNull();
+
+            restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(header().string("X-Sql-Statements", "0"));
+
+            RecipeDTO recipeDTO = recipeMapper.toDto(recipe);
+            recipeDTO.setName(UPDATED_NAME);
+            restRecipeMockMvc
+                    .perform(put(ENTITY_API_URL_ID, recipe.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                    .andExpect(status().isOk());
+
+            restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.name").value(UPDATED_NAME))
+                    .andExpect(header().string("ETag", not(etag)));
+        } finally {
+            recipeRepository.deleteById(recipe.getId());
+        }
+    }
+
+    @Test
+    void putRecipe_with_stale_if_match_is_precondition_failed() throws Exception {
+        // each request writes in its own transaction, as it would outside of the test
+        recipeRepository.saveAndFlush(recipe);
+        try {
+            String etag = restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(0))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            RecipeDTO recipeDTO = recipeMapper.toDto(recipe);
+            recipeDTO.setVersion(null);
+            recipeDTO.setName(UPDATED_NAME);
+            restRecipeMockMvc
+                    .perform(put(ENTITY_API_URL_ID, recipe.getId()).header("If-Match", etag).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(1));
+
+            recipeDTO.setName(DEFAULT_NAME);
+            restRecipeMockMvc
+                    .perform(put(ENTITY_API_URL_ID, recipe.getId()).header("If-Match", etag).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                    .andExpect(status().isPreconditionFailed());
+            recipeDTO.setVersion(0L);
+            restRecipeMockMvc
+                    .perform(put(ENTITY_API_URL_ID, recipe.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                    .andExpect(status().isConflict());
+
+            assertThat(recipeRepository.findById(recipe.getId()).get().getName()).isEqualTo(UPDATED_NAME);
+        } finally {
+            recipeRepository.deleteById(recipe.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    @MaxSqlStatementsPerRequest(2)
+    void getRecipesById_keeps_the_order_of_the_ids_and_reports_the_missing_ones() throws Exception {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            recipes.add(recipeRepository.save(createEntity(em).name("BATCH " + i)));
+        }
+        em.flush();
+        em.clear();
+
+        // the recipes and their attributes are read in one statement each, whatever the number of ids
+        restRecipeMockMvc
+                .perform(get(ENTITY_API_URL).param("ids", recipes.get(2).getId() + "," + Long.MAX_VALUE + "," + recipes.get(0).getId() + "," + recipes.get(2).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.[*].id").value(contains(recipes.get(2).getId().intValue(), recipes.get(0).getId().intValue())))
+                .andExpect(jsonPath("$.items.[*].name").value(contains("BATCH 2", "BATCH 0")))
+                .andExpect(jsonPath("$.missingIds").value(contains(Long.MAX_VALUE)));
+    }
+
+    @Test
+    @Transactional
+    @MaxSqlStatementsPerRequest(2)
+    void getFullRecipe_reads_the_recipe_its_attributes_and_ingredients_in_two_statements() throws Exception {
+        Attribute attribute = new Attribute();
+        attribute.setRecipeAttributeType(RecipeAttributeType.VEGETARIAN);
+        recipe.setAttributes(Collections.singleton(attribute));
+        Set<RecipeIngredient> recipeIngredients = new LinkedHashSet<>();
+        for (String name : new String[]{"rice", "salt"}) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName(name);
+            RecipeIngredient recipeIngredient = new RecipeIngredient();
+            recipeIngredient.setAmount(name.equals("rice") ? 200 : 5);
+            recipeIngredient.setIngredient(ingredient);
+            recipeIngredients.add(recipeIngredient);
+        }
+        recipe.setRecipeIngredients(recipeIngredients);
+        recipeRepository.saveAndFlush(recipe);
+        em.clear();
+
+        restRecipeMockMvc
+                .perform(get(ENTITY_API_URL_ID + "/full", recipe.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+                .andExpect(jsonPath("$.attributes.[*].recipeAttributeType").value(contains(RecipeAttributeType.VEGETARIAN.toString())))
+                .andExpect(jsonPath("$.ingredients.[*].ingredient.name").value(contains("rice", "salt")))
+                .andExpect(jsonPath("$.ingredients.[*].amount").value(contains(200, 5)));
+    }
+
+    @Test
+    void putRecipeIngredient_moved_to_another_recipe_changes_the_full_recipe_it_left() throws Exception {
+        // versions advance when a write commits, so the recipes are committed
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("MOVED " + count.incrementAndGet());
+        RecipeIngredient recipeIngredient = recipeIngredient(ingredient);
+        recipe.setRecipeIngredients(new HashSet<>(Set.of(recipeIngredient)));
+        recipeRepository.saveAndFlush(recipe);
+        Recipe target = recipeRepository.saveAndFlush(createEntity(em).name(UPDATED_NAME));
+        try {
+            String etag = restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID + "/full", recipe.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ingredients.length()").value(1))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            RecipeIngredientDTO moved = recipeIngredientService.findOne(recipeIngredient.getId()).orElseThrow();
+            moved.setRecipe(recipeMapper.toDto(target));
+            restRecipeMockMvc
+                    .perform(put("/api/recipe-ingredients/{id}", moved.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(moved)))
+                    .andExpect(status().isOk());
+
+            restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID + "/full", recipe.getId()).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(etag)))
+                    .andExpect(jsonPath("$.ingredients.length()").value(0));
+        } finally {
+            recipeIngredientService.delete(recipeIngredient.getId());
+            recipeRepository.deleteById(target.getId());
+            recipeRepository.deleteById(recipe.getId());
+            ingredientRepository.deleteById(ingredient.getId());
+        }
+    }
+
+    @Test
+    void getFullRecipe_loaded_before_a_write_is_cached_under_the_stamp_read_before_the_write() throws Exception {
+        Long id = count.incrementAndGet();
+        FullRecipeDTO before = new FullRecipeDTO(recipeDto(id, 0L, DEFAULT_NAME), Collections.emptySet(), Collections.emptyList());
+        FullRecipeDTO after = new FullRecipeDTO(recipeDto(id, 1L, UPDATED_NAME), Collections.emptySet(), Collections.emptyList());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        double followersBefore = meterRegistry.counter("recipeman.single-flight.loads", "name", "recipe-full", "role", "follower").count();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Stamped<FullRecipeDTO>>> leader = executor.submit(() -> fullRecipeCache.get(id, () -> {
+                loading.countDown();
+                awaitUninterruptibly(written);
+                return Optional.of(before);
+            }));
+            assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+            long stampBefore = fullRecipeCache.stamp(before);
+
+            // a write commits while the leader loads, then a reader joins the load
+            entityVersions.advance(Map.<Class<?>, List<Long>>of(Recipe.class, List.of(id)));
+            Future<Optional<Stamped<FullRecipeDTO>>> follower = executor.submit(() -> fullRecipeCache.get(id, () -> Optional.of(after)));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (meterRegistry.counter("recipeman.single-flight.loads", "name", "recipe-full", "role", "follower").count() == followersBefore) {
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.sleep(1);
+            }
+            written.countDown();
+
+            assertThat(leader.get(10, TimeUnit.SECONDS)).get().extracting(Stamped::getStamp).isEqualTo(stampBefore);
+            assertThat(follower.get(10, TimeUnit.SECONDS)).get().extracting(Stamped::getStamp).isEqualTo(stampBefore);
+            Optional<Stamped<FullRecipeDTO>> reloaded = fullRecipeCache.get(id, () -> Optional.of(after));
+            assertThat(reloaded).get().extracting(recipe -> recipe.getValue().getName()).isEqualTo(UPDATED_NAME);
+            assertThat(reloaded).get().extracting(Stamped::getStamp).isEqualTo(fullRecipeCache.stamp(after));
+        } finally {
+            written.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getFullRecipe_stays_cached_while_only_other_attributes_and_ingredients_are_written() {
+        Long id = count.incrementAndGet();
+        Long attributeId = count.incrementAndGet();
+        Long ingredientId = count.incrementAndGet();
+        AttributeDTO attribute = new AttributeDTO(attributeId, 0L, RecipeAttributeType.VEGETARIAN);
+        RecipeIngredientDTO recipeIngredient = new RecipeIngredientDTO();
+        recipeIngredient.setIngredient(new IngredientDTO(ingredientId, 0L, "rice"));
+        FullRecipeDTO recipe = new FullRecipeDTO(recipeDto(id, 0L, DEFAULT_NAME), Set.of(attribute), List.of(recipeIngredient));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(fullRecipeCache.get(id, () -> {
+            loads.incrementAndGet();
+            return Optional.of(recipe);
+        })).isPresent();
+        entityVersions.advance(Map.<Class<?>, List<Long>>of(Attribute.class, List.of(count.incrementAndGet()), Ingredient.class, List.of(count.incrementAndGet())));
+        fullRecipeCache.get(id, () -> {
+            loads.incrementAndGet();
+            return Optional.of(recipe);
+        });
+        assertThat(loads).hasValue(1);
+
+        entityVersions.advance(Map.<Class<?>, List<Long>>of(Ingredient.class, List.of(ingredientId)));
+        fullRecipeCache.get(id, () -> {
+            loads.incrementAndGet();
+            return Optional.of(recipe);
+        });
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void getRecipe_writes_the_cached_json_or_its_gzip() throws Exception {
+        // the json is only cached outside of a read-write transaction, so the recipe is committed
+        recipeRepository.saveAndFlush(recipe);
+        try {
+            byte[] json = restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(json))
+                    .andExpect(header().string("X-Sql-Statements", "0"));
+
+            byte[] gzip = restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()).header("Accept-Encoding", "br;q=1.0, gzip;q=0.8"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andExpect(header().string("Vary", "Accept-Encoding"))
+                    .andReturn().getResponse().getContentAsByteArray();
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                assertThat(in.readAllBytes()).isEqualTo(json);
+            }
+
+            // a listed gzip wins over *, whatever their order
+            restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()).header("Accept-Encoding", "*;q=0, gzip"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andExpect(content().bytes(gzip));
+            restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID, recipe.getId()).header("Accept-Encoding", "*, gzip;q=0"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("Content-Encoding"))
+                    .andExpect(content().bytes(json));
+        } finally {
+            recipeRepository.deleteById(recipe.getId());
+        }
+    }
+
+    @Test
+    void getRecipe_json_stays_cached_while_only_other_attributes_are_written() {
+        Long id = count.incrementAndGet();
+        Long attributeId = count.incrementAndGet();
+        RecipeDTO recipe = recipeDto(id, 0L, DEFAULT_NAME);
+        recipe.setAttributes(Set.of(new AttributeDTO(attributeId, 0L, RecipeAttributeType.VEGETARIAN)));
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            assertThat(recipeJsonCache.get(id, () -> {
+                loads.incrementAndGet();
+                return Optional.of(recipe);
+            })).isPresent();
+            entityVersions.advance(Map.<Class<?>, List<Long>>of(Attribute.class, List.of(count.incrementAndGet())));
+            recipeJsonCache.get(id, () -> {
+                loads.incrementAndGet();
+                return Optional.of(recipe);
+            });
+            assertThat(loads).hasValue(1);
+
+            entityVersions.advance(Map.<Class<?>, List<Long>>of(Attribute.class, List.of(attributeId)));
+            recipeJsonCache.get(id, () -> {
+                loads.incrementAndGet();
+                return Optional.of(recipe);
+            });
+            assertThat(loads).hasValue(2);
+        } finally {
+            recipeJsonCache.evict(id);
+        }
+    }
+
+    @Test
+    void getRecipe_json_loaded_before_a_write_is_cached_under_the_stamp_read_before_the_write() throws Exception {
+        Long id = count.incrementAndGet();
+        RecipeDTO before = recipeDto(id, 0L, DEFAULT_NAME);
+        RecipeDTO after = recipeDto(id, 1L, UPDATED_NAME);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        double followersBefore = meterRegistry.counter("recipeman.single-flight.loads", "name", "recipe-json", "role", "follower").count();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<SerializedRecipe>> leader = executor.submit(() -> recipeJsonCache.get(id, () -> {
+                loading.countDown();
+                awaitUninterruptibly(written);
+                return Optional.of(before);
+            }));
+            assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+            // the recipe holds no attributes, so its stamp is its version
+            long stampBefore = entityVersions.version(Recipe.class, id);
+
+            // a write commits while the leader loads, then a reader joins the load
+            entityVersions.advance(Map.<Class<?>, List<Long>>of(Recipe.class, List.of(id)));
+            Future<Optional<SerializedRecipe>> follower = executor.submit(() -> recipeJsonCache.get(id, () -> Optional.of(after)));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (meterRegistry.counter("recipeman.single-flight.loads", "name", "recipe-json", "role", "follower").count() == followersBefore) {
+                assertThat(System.nanoTime()).isLessThan(deadline);
+                Thread.sleep(1);
+            }
+            written.countDown();
+
+            assertThat(leader.get(10, TimeUnit.SECONDS)).get().extracting(SerializedRecipe::getStamp).isEqualTo(stampBefore);
+            assertThat(follower.get(10, TimeUnit.SECONDS)).get().extracting(SerializedRecipe::getStamp).isEqualTo(stampBefore);
+            assertThat(recipeJsonCache.stamp(id, leader.get().orElseThrow())).isGreaterThan(stampBefore);
+            Optional<SerializedRecipe> reloaded = recipeJsonCache.get(id, () -> Optional.of(after));
+            assertThat(reloaded).get().extracting(SerializedRecipe::getVersion).isEqualTo(1L);
+            assertThat(reloaded).get().extracting(SerializedRecipe::getStamp).isEqualTo(recipeJsonCache.stamp(id, reloaded.get()));
+        } finally {
+            written.countDown();
+            executor.shutdownNow();
+            recipeJsonCache.evict(id);
+        }
+    }
+
     @Test
     @Transactional
     void getNonExistingRecipe() throws Exception {
@@ -310,6 +768,73 @@ class RecipesControllerTest {
         assertThat(testRecipe.getInstruction()).isEqualTo(UPDATED_INSTRUCTION);
     }
 
+    @Test
+    @Transactional
+    void putRecipe_answers_a_stale_version_by_where_it_came_from() throws Exception {
+        recipeRepository.saveAndFlush(recipe);
+        RecipeDTO recipeDTO = recipeMapper.toDto(recipe);
+        recipeDTO.setName(UPDATED_NAME);
+
+        // a weak tag never matches
+        restRecipeMockMvc
+                .perform(put(ENTITY_API_URL_ID, recipe.getId()).header("If-Match", "W/" + EntityTags.of("test", 0, 0))
+                        .contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                .andExpect(status().isPreconditionFailed());
+
+        // with If-Match: *, the expected version comes from the body
+        recipeDTO.setVersion(1L);
+        restRecipeMockMvc
+                .perform(put(ENTITY_API_URL_ID, recipe.getId()).header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                .andExpect(status().isConflict());
+
+        // nothing matches a missing recipe
+        recipeDTO.setId(count.incrementAndGet());
+        recipeDTO.setVersion(null);
+        restRecipeMockMvc
+                .perform(put(ENTITY_API_URL_ID, recipeDTO.getId()).header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @Transactional
+    void putRecipe_with_unchanged_attributes_leaves_the_join_table_alone() throws Exception {
+        Attribute attribute = new Attribute();
+        attribute.setRecipeAttributeType(RecipeAttributeType.HILAL);
+        recipe.setAttributes(new HashSet<>(Set.of(attribute)));
+        recipeRepository.saveAndFlush(recipe);
+        em.clear();
+        RecipeDTO recipeDTO = recipeMapper.toDto(recipe);
+        recipeDTO.setName(UPDATED_NAME);
+
+        // one select of the recipe and one of its attribute ids, one versioned update of the recipe and none of the join table
+        restRecipeMockMvc
+                .perform(put(ENTITY_API_URL_ID, recipe.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatementBudgetFilter.STATEMENTS_HEADER, "3"))
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.attributes.[*].id").value(contains(attribute.getId().intValue())));
+        em.clear();
+        Recipe updatedRecipe = recipeRepository.findOneWithEagerRelationships(recipe.getId()).orElseThrow();
+        assertThat(updatedRecipe.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(updatedRecipe.getVersion()).isEqualTo(1);
+        assertThat(updatedRecipe.getAttributes()).extracting(Attribute::getId).containsExactly(attribute.getId());
+
+        recipeDTO.setVersion(1L);
+        recipeDTO.setAttributes(new HashSet<>());
+        restRecipeMockMvc
+                .perform(put(ENTITY_API_URL_ID, recipe.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2));
+        em.clear();
+        assertThat(recipeRepository.findOneWithEagerRelationships(recipe.getId()).orElseThrow().getAttributes()).isEmpty();
+
+        restRecipeMockMvc
+                .perform(put(ENTITY_API_URL_ID, recipe.getId()).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(recipeDTO)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @Transactional
     void putNonExistingRecipe() throws Exception {
@@ -550,6 +1075,38 @@ class RecipesControllerTest {
     }
 
 
+    @Test
+    void inquiryRecipe_instruction_matches_phrase_with_prefix() throws Exception {
+        // the indexes only hold committed writes
+        recipe.setInstruction(APPLE_PIE_INSTRUCTION);
+        Recipe savedRecipe = recipeRepository.saveAndFlush(recipe);
+        try {
+            for (String text : List.of("Whisk TOGETHER the fl", "medium bowl")) {
+                MvcResult mvcResult = restRecipeMockMvc
+                        .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                                .content(TestUtil.convertObjectToJsonBytes(FilterRecipeDto.builder().filterInstruction(text).build()))
+                        )
+                        .andExpect(status().isOk())
+                        .andReturn();
+                List<RecipeDTO> recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+                });
+                assertThat(recipeList).extracting(RecipeDTO::getId).contains(savedRecipe.getId());
+            }
+
+            MvcResult mvcResult = restRecipeMockMvc
+                    .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(FilterRecipeDto.builder().filterInstruction("together whisk").build()))
+                    )
+                    .andExpect(status().isOk())
+                    .andReturn();
+            List<RecipeDTO> recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+            });
+            assertThat(recipeList).extracting(RecipeDTO::getId).doesNotContain(savedRecipe.getId());
+        } finally {
+            recipeRepository.deleteById(savedRecipe.getId());
+        }
+    }
+
     @Test
     @Transactional
     void inquiryRecipeNotExist() throws Exception {
@@ -609,6 +1166,53 @@ class RecipesControllerTest {
         assertThat(recipeList.get(0).getAttributes().size()).isEqualTo(1);
     }
 
+    @Test
+    void inquiryRecipe_on_database_with_parallel_lookups() throws Exception {
+        // parallel lookups run on connections of their own, they only see committed recipes
+        Attribute attribute = new Attribute();
+        attribute.setRecipeAttributeType(RecipeAttributeType.VEGETARIAN);
+        recipe.setInstruction(APPLE_PIE_INSTRUCTION);
+        recipe.setAttributes(Collections.singleton(attribute));
+        recipeRepository.saveAndFlush(recipe);
+        applicationProperties.getInquiry().setUseIndex(false);
+        try {
+            FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder()
+                    .attributes(Set.of(RecipeAttributeType.VEGETARIAN))
+                    .filterInstruction("2 tablespoons")
+                    .build();
+            // the attribute lookup is a cached query
+            em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+            String sequentialStatements = restRecipeMockMvc
+                    .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                            .param("size", "10")
+                    )
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(SqlStatementBudgetFilter.STATEMENTS_HEADER);
+
+            applicationProperties.getInquiry().setParallelLookups(true);
+            em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+            MvcResult mvcResult = restRecipeMockMvc
+                    .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                    )
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            List<RecipeDTO> recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+            });
+            assertThat(recipeList).extracting(RecipeDTO::getId).containsExactly(recipe.getId());
+            // the statements of the lookups run on the pool are counted like the ones run one after the other, another
+            // page size keeping the inquiry out of the cache
+            assertThat(mvcResult.getResponse().getHeader(SqlStatementBudgetFilter.STATEMENTS_HEADER)).isEqualTo(sequentialStatements);
+        } finally {
+            applicationProperties.getInquiry().setUseIndex(true);
+            applicationProperties.getInquiry().setParallelLookups(false);
+            recipeRepository.deleteById(recipe.getId());
+            attributeRepository.deleteById(attribute.getId());
+        }
+    }
+
     @Test
     @Transactional
     void inquiryRecipe_with_ingradient() throws Exception {
@@ -642,4 +1246,331 @@ class RecipesControllerTest {
         List<RecipeIngredientDTO> byRecipeId = recipeIngredientService.findByRecipeId(savedRecipe.getId());
         assertThat(byRecipeId.size()).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional
+    void inquiryRecipe_by_serving_number_is_paged() throws Exception {
+        Recipe first = recipeRepository.saveAndFlush(createEntity(em).name("FIRST").servingNumber(7));
+        Recipe second = recipeRepository.saveAndFlush(createEntity(em).name("SECOND").servingNumber(7));
+        recipeRepository.saveAndFlush(createEntity(em).name("THIRD").servingNumber(8));
+        FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder().servingNumber(7).build();
+
+        MvcResult mvcResult = restRecipeMockMvc
+                .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                        .param("page", "1")
+                        .param("size", "1")
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<RecipeDTO> recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+        });
+        assertThat(recipeList).hasSize(1);
+        assertThat(recipeList.get(0).getId()).isEqualTo(Math.max(first.getId(), second.getId()));
+    }
+
+    @Test
+    @Transactional
+    void inquiryRecipe_page_size_is_capped() throws Exception {
+        recipeRepository.saveAndFlush(createEntity(em).name("FIRST").servingNumber(9));
+        recipeRepository.saveAndFlush(createEntity(em).name("SECOND").servingNumber(9));
+        recipeRepository.saveAndFlush(createEntity(em).name("THIRD").servingNumber(9));
+        FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder().servingNumber(9).build();
+        applicationProperties.getPagination().setMaxPageSize(2);
+        try {
+            restRecipeMockMvc
+                    .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                            .param("size", "10000000")
+                    )
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2));
+            restRecipeMockMvc
+                    .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                            .param("size", "0")
+                    )
+                    .andExpect(status().isBadRequest());
+        } finally {
+            applicationProperties.getPagination().setMaxPageSize(1000);
+        }
+    }
+
+    @Test
+    void suggestIngredients_ranks_by_recipe_count_without_sql() throws Exception {
+        // the indexes only hold committed writes
+        Ingredient parsley = new Ingredient();
+        parsley.setName("Parsley");
+        Ingredient parmesan = new Ingredient();
+        parmesan.setName("Parmesan");
+        Ingredient paprika = new Ingredient();
+        paprika.setName("Paprika");
+        Recipe pesto = createEntity(em).name("PESTO");
+        pesto.setRecipeIngredients(Set.of(recipeIngredient(parsley), recipeIngredient(parmesan)));
+        Recipe tabbouleh = createEntity(em).name("TABBOULEH");
+        tabbouleh.setRecipeIngredients(Set.of(recipeIngredient(parsley), recipeIngredient(paprika)));
+        recipeRepository.saveAllAndFlush(List.of(pesto, tabbouleh));
+        try {
+            restRecipeMockMvc
+                    .perform(get("/api/ingredients/suggest").param("prefix", "PAR"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Sql-Statements", "0"))
+                    .andExpect(jsonPath("$[*].name").value(contains("Parsley", "Parmesan")))
+                    .andExpect(jsonPath("$[0].recipeCount").value(2));
+        } finally {
+            deleteWithIngredients(pesto, tabbouleh);
+        }
+    }
+
+    @Test
+    void getSimilarRecipes_ranks_by_shared_ingredients() throws Exception {
+        // the indexes only hold committed writes
+        Ingredient rice = new Ingredient();
+        rice.setName("rice");
+        Ingredient salt = new Ingredient();
+        salt.setName("salt");
+        Ingredient pepper = new Ingredient();
+        pepper.setName("pepper");
+        Ingredient oil = new Ingredient();
+        oil.setName("oil");
+        Recipe seasoned = createEntity(em).name("SEASONED RICE");
+        seasoned.setRecipeIngredients(Set.of(recipeIngredient(rice), recipeIngredient(salt), recipeIngredient(pepper)));
+        Recipe fried = createEntity(em).name("FRIED RICE");
+        fried.setRecipeIngredients(Set.of(recipeIngredient(rice), recipeIngredient(salt), recipeIngredient(pepper), recipeIngredient(oil)));
+        Recipe dressing = createEntity(em).name("DRESSING");
+        dressing.setRecipeIngredients(Set.of(recipeIngredient(oil)));
+        recipeRepository.saveAllAndFlush(List.of(seasoned, fried, dressing));
+        try {
+            MvcResult mvcResult = restRecipeMockMvc
+                    .perform(get(ENTITY_API_URL_ID + "/similar", seasoned.getId()).param("k", "5"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            List<RecipeDTO> recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+            });
+            assertThat(recipeList).extracting(RecipeDTO::getId).startsWith(fried.getId()).doesNotContain(seasoned.getId(), dressing.getId());
+        } finally {
+            deleteWithIngredients(seasoned, fried, dressing);
+        }
+    }
+
+    @Test
+    void inquiryRecipe_with_facets_counts_the_whole_result() throws Exception {
+        // the indexes only hold committed writes
+        Ingredient rice = new Ingredient();
+        rice.setName("rice");
+        Ingredient salt = new Ingredient();
+        salt.setName("salt");
+        Recipe salted = createEntity(em).name("SALTED RICE").servingNumber(2);
+        salted.setRecipeIngredients(Set.of(recipeIngredient(rice), recipeIngredient(salt)));
+        Recipe plain = createEntity(em).name("PLAIN RICE").servingNumber(4);
+        plain.setRecipeIngredients(Set.of(recipeIngredient(rice)));
+        Recipe brine = createEntity(em).name("BRINE").servingNumber(4);
+        brine.setRecipeIngredients(Set.of(recipeIngredient(salt)));
+        recipeRepository.saveAllAndFlush(List.of(salted, plain, brine));
+        FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder().includeIngredients(Set.of("rice")).build();
+        try {
+            restRecipeMockMvc
+                    .perform(post(INQUIRY_API_URL + "/faceted").contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                            .param("size", "1")
+                    )
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes.length()").value(1))
+                    .andExpect(jsonPath("$.facets.total").value(2))
+                    .andExpect(jsonPath("$.facets.servingNumbers.2").value(1))
+                    .andExpect(jsonPath("$.facets.servingNumbers.4").value(1))
+                    .andExpect(jsonPath("$.facets.ingredients.rice").value(2))
+                    .andExpect(jsonPath("$.facets.ingredients.salt").value(1));
+        } finally {
+            deleteWithIngredients(salted, plain, brine);
+        }
+    }
+
+    @Test
+    @Transactional
+    void inquiryRecipe_excluded_ingredient_removes_recipe() throws Exception {
+        Ingredient rice = new Ingredient();
+        rice.setName("rice");
+        Ingredient salt = new Ingredient();
+        salt.setName("salt");
+        Recipe salted = createEntity(em).name("SALTED RICE");
+        salted.setRecipeIngredients(Set.of(recipeIngredient(rice), recipeIngredient(salt)));
+        salted = recipeRepository.saveAndFlush(salted);
+        Recipe plain = createEntity(em).name("PLAIN RICE");
+        plain.setRecipeIngredients(Set.of(recipeIngredient(rice)));
+        plain = recipeRepository.saveAndFlush(plain);
+        FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder().includeIngredients(Set.of("rice")).excludeIngredients(Set.of("salt")).build();
+
+        MvcResult mvcResult = restRecipeMockMvc
+                .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                        .param("page", "0")
+                        .param("size", "10")
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<RecipeDTO> recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+        });
+        assertThat(recipeList).extracting(RecipeDTO::getId).contains(plain.getId()).doesNotContain(salted.getId());
+    }
+
+    @Test
+    @Transactional
+    void inquiryRecipe_by_cursor_follows_next_cursor() throws Exception {
+        Recipe first = recipeRepository.saveAndFlush(createEntity(em).name("FIRST").servingNumber(11));
+        Recipe second = recipeRepository.saveAndFlush(createEntity(em).name("SECOND").servingNumber(11));
+        Recipe third = recipeRepository.saveAndFlush(createEntity(em).name("THIRD").servingNumber(11));
+        FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder().servingNumber(11).build();
+
+        MvcResult mvcResult = restRecipeMockMvc
+                .perform(post(INQUIRY_API_URL + "/cursor").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                        .param("size", "2")
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().exists(PaginationUtil.NEXT_CURSOR_HEADER))
+                .andReturn();
+        List<RecipeDTO> recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+        });
+        assertThat(recipeList).extracting(RecipeDTO::getId).containsExactly(first.getId(), second.getId());
+
+        mvcResult = restRecipeMockMvc
+                .perform(post(INQUIRY_API_URL + "/cursor").contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                        .param("after", mvcResult.getResponse().getHeader(PaginationUtil.NEXT_CURSOR_HEADER))
+                        .param("size", "2")
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PaginationUtil.NEXT_CURSOR_HEADER))
+                .andReturn();
+        recipeList = TestUtil.serialize(mvcResult.getResponse().getContentAsString(), new TypeReference<List<RecipeDTO>>() {
+        });
+        assertThat(recipeList).extracting(RecipeDTO::getId).containsExactly(third.getId());
+
+        restRecipeMockMvc
+                .perform(get(ENTITY_API_URL + "/cursor").param("after", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void inquiryRecipe_is_counted_by_filter_shape() throws Exception {
+        double before = meterRegistry.counter("recipeman.inquiry.requests", "shape", "include+serving").count();
+        FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder()
+                .includeIngredients(Collections.singleton("NOT AN INGREDIENT"))
+                .servingNumber(3)
+                .build();
+
+        restRecipeMockMvc
+                .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                )
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.counter("recipeman.inquiry.requests", "shape", "include+serving").count()).isEqualTo(before + 1);
+        assertThat(meterRegistry.find("recipeman.service").tag("method", "inquiryRecipes").timer())
+                .isNotNull()
+                .satisfies(timer -> assertThat(timer.count()).isPositive());
+    }
+
+    @Test
+    @Transactional
+    @MaxSqlStatementsPerRequest(3)
+    void inquiryRecipe_loads_a_page_in_a_bounded_number_of_statements() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            recipeRepository.save(createEntity(em).name("BUDGET " + i).servingNumber(13));
+        }
+        em.flush();
+        em.clear();
+        FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder().servingNumber(13).build();
+
+        restRecipeMockMvc
+                .perform(post(INQUIRY_API_URL).contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(filterRecipeDto))
+                        .param("size", "20")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(header().exists(SqlStatementBudgetFilter.STATEMENTS_HEADER))
+                .andExpect(header().string(SqlStatementBudgetFilter.SERVER_TIMING_HEADER, startsWith("sql;dur=")));
+    }
+
+    @Test
+    void inquiryRecipe_after_a_write_drops_the_results_of_older_generations() {
+        Recipe first = recipeRepository.saveAndFlush(createEntity(em).name("GENERATION 1").servingNumber(17));
+        Recipe second = null;
+        try {
+            FilterRecipeDto filterRecipeDto = FilterRecipeDto.builder().servingNumber(17).build();
+            assertThat(recipeService.inquiryRecipes(filterRecipeDto, PageRequest.of(0, 10))).extracting(RecipeDTO::getId).containsExactly(first.getId());
+            assertThat(inquiryCacheSize()).isPositive();
+
+            second = recipeRepository.saveAndFlush(createEntity(em).name("GENERATION 2").servingNumber(17));
+
+            assertThat(recipeService.inquiryRecipes(filterRecipeDto, PageRequest.of(0, 10))).extracting(RecipeDTO::getId)
+                    .containsExactly(first.getId(), second.getId());
+            assertThat(inquiryCacheSize()).isEqualTo(1);
+        } finally {
+            recipeRepository.deleteById(first.getId());
+            if (second != null) {
+                recipeRepository.deleteById(second.getId());
+            }
+        }
+    }
+
+    private int inquiryCacheSize() {
+        int size = 0;
+        for (Cache.Entry<Object, Object> ignored : cacheManager.getCache(RecipeInquiryCache.CACHE_NAME)) {
+            size++;
+        }
+        return size;
+    }
+
+    private static RecipeDTO recipeDto(Long id, Long version, String name) {
+        RecipeDTO recipeDTO = new RecipeDTO();
+        recipeDTO.setId(id);
+        recipeDTO.setVersion(version);
+        recipeDTO.setName(name);
+        recipeDTO.setServingNumber(DEFAULT_SERVING_NUMBER);
+        recipeDTO.setInstruction(DEFAULT_INSTRUCTION);
+        return recipeDTO;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static RecipeImportDTO recipeImport(String name) {
+        RecipeImportDTO recipeImport = new RecipeImportDTO();
+        recipeImport.setName(name);
+        recipeImport.setServingNumber(DEFAULT_SERVING_NUMBER);
+        recipeImport.setInstruction(DEFAULT_INSTRUCTION);
+        return recipeImport;
+    }
+
+    private void deleteWithIngredients(Recipe... recipes) {
+        Set<Long> ingredientIds = new HashSet<>();
+        for (Recipe committed : recipes) {
+            for (RecipeIngredient recipeIngredient : committed.getRecipeIngredients()) {
+                recipeIngredientService.delete(recipeIngredient.getId());
+                ingredientIds.add(recipeIngredient.getIngredient().getId());
+            }
+            recipeRepository.deleteById(committed.getId());
+        }
+        ingredientIds.forEach(ingredientRepository::deleteById);
+    }
+
+    private static RecipeIngredient recipeIngredient(Ingredient ingredient) {
+        RecipeIngredient recipeIngredient = new RecipeIngredient();
+        recipeIngredient.setAmount(100);
+        recipeIngredient.setIngredient(ingredient);
+        return recipeIngredient;
+    }
+}
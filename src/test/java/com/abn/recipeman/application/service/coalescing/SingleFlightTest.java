@@ -0,0 +1,130 @@
+package com.abn.recipeman.application.service.coalescing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 7;
+
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<Long, String> flight;
+
+    private ExecutorService executor;
+
+    private CountDownLatch loading;
+
+    private CountDownLatch release;
+
+    @BeforeEach
+    public void initTest() {
+        meterRegistry = new SimpleMeterRegistry();
+        flight = new SingleFlight<>("test", mock(PlatformTransactionManager.class), meterRegistry);
+        executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        loading = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_shares_the_load_in_flight_with_the_callers_arriving_during_it() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        Future<String> leader = executor.submit(() -> flight.load(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            awaitUninterruptibly(release);
+            return "leader";
+        }));
+        List<Future<String>> followers = startFollowers(() -> {
+            loads.incrementAndGet();
+            return "follower";
+        });
+        release.countDown();
+
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("leader");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(10, TimeUnit.SECONDS)).isEqualTo("leader");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(count("follower")).isEqualTo(FOLLOWERS);
+
+        // nothing is kept once the load is done
+        assertThat(flight.load(1L, () -> "later")).isEqualTo("later");
+        assertThat(count("leader")).isEqualTo(2);
+    }
+
+    @Test
+    void load_fails_the_callers_sharing_a_load_with_the_exception_of_the_leader() throws Exception {
+        IllegalStateException failure = new IllegalStateException("load failed");
+        Future<String> leader = executor.submit(() -> flight.load(1L, () -> {
+            loading.countDown();
+            awaitUninterruptibly(release);
+            throw failure;
+        }));
+        List<Future<String>> followers = startFollowers(() -> "follower");
+        release.countDown();
+
+        assertThat(catchThrowable(() -> leader.get(10, TimeUnit.SECONDS))).isInstanceOf(ExecutionException.class).hasCause(failure);
+        for (Future<String> follower : followers) {
+            assertThat(catchThrowable(() -> follower.get(10, TimeUnit.SECONDS))).isInstanceOf(ExecutionException.class).hasCause(failure);
+        }
+        assertThat(count("leader")).isEqualTo(1);
+        assertThat(count("follower")).isEqualTo(FOLLOWERS);
+    }
+
+    /**
+     * Start the followers once the leader is loading, and wait for all of them to have joined its load.
+     */
+    private List<Future<String>> startFollowers(Supplier<String> loader) throws InterruptedException {
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(executor.submit(() -> flight.load(1L, loader)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count("follower") < FOLLOWERS) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        return followers;
+    }
+
+    private double count(String role) {
+        return meterRegistry.counter("recipeman.single-flight.loads", "name", "test", "role", role).count();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}